@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Creates random product and purchase lines in the same format as the Product_*.txt and Purchase_*.txt files.
+ * The same seed always gives the same lines.
+ * Sample usage (writes the two files):
+ * java -cp out InputGenerator Product_big.txt Purchase_big.txt 1000 100000 0.3
+ */
+public class InputGenerator {
+    private static final String[] nutrients = {"CARB", "PROTEIN", "FAT", "CALORIE"};
+    private static final short[] coins = {1, 5, 10, 20, 50, 100, 200};
+
+    private final Random random;
+
+    public InputGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Creates product lines for the given number of different products, 10 lines for each of them,
+     * in a random order.
+     *
+     * @param catalogSize Number of different products.
+     * @return The product lines.
+     */
+    public String[] products(int catalogSize) {
+        String[] lines = new String[catalogSize * 10];
+        for (int id = 0; id < catalogSize; id++) {
+            String line = "Product " + id + "\t" + (1 + random.nextInt(60)) + "\t"
+                    + decimal(60) + " " + decimal(90) + " " + decimal(40);
+            Arrays.fill(lines, id * 10, id * 10 + 10, line);
+        }
+        shuffle(lines);
+        return lines;
+    }
+
+    /**
+     * Creates purchase lines. Most of the coins are valid and some lines ask for a slot that does not exist.
+     *
+     * @param count       Number of purchase lines.
+     * @param slotCount   Number of slots of the machine the purchases are made from.
+     * @param numberShare Share of the purchases made with a slot number, between 0 and 1; the rest are made with a value.
+     * @return The purchase lines.
+     */
+    public String[] purchases(int count, int slotCount, double numberShare) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder line = new StringBuilder("CASH\t");
+            int coinCount = 1 + random.nextInt(4);
+            for (int c = 0; c < coinCount; c++) {
+                if (c > 0) {
+                    line.append(' ');
+                }
+                line.append(random.nextInt(20) == 0 ? 3 : coins[random.nextInt(coins.length)]); // 3 TL is not accepted
+            }
+            if (random.nextDouble() < numberShare) {
+                line.append("\tNUMBER\t").append(random.nextInt(slotCount + slotCount / 20 + 1));
+            } else {
+                String nutrient = nutrients[random.nextInt(nutrients.length)];
+                line.append('\t').append(nutrient).append('\t').append(random.nextInt(nutrient.equals("CALORIE") ? 700 : 90));
+            }
+            lines[i] = line.toString();
+        }
+        return lines;
+    }
+
+    /**
+     * Creates queries for MATCH purchases, each with one or two lower bounds and an upper bound on the calorie.
+     *
+     * @param count Number of queries.
+     * @return The query texts.
+     */
+    public String[] queries(int count) {
+        String[] queries = new String[count];
+        for (int i = 0; i < count; i++) {
+            String query = nutrients[random.nextInt(3)] + ">=" + random.nextInt(40);
+            if (random.nextBoolean()) {
+                query += " and " + nutrients[random.nextInt(3)] + ">=" + random.nextInt(40);
+            }
+            queries[i] = query + " and CALORIE<=" + (200 + random.nextInt(500));
+        }
+        return queries;
+    }
+
+    private String decimal(int max) {
+        return random.nextBoolean() ? Integer.toString(random.nextInt(max)) : Integer.toString(random.nextInt(max)) + "." + random.nextInt(10);
+    }
+
+    private void shuffle(String[] lines) {
+        for (int i = lines.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String line = lines[i];
+            lines[i] = lines[j];
+            lines[j] = line;
+        }
+    }
+
+    /**
+     * Writes a product file and a purchase file for a machine that can hold the whole catalog.
+     *
+     * @param args Product file, purchase file, catalog size, purchase count and the share of slot number purchases.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5) {
+            System.out.println("Usage: java InputGenerator <product file> <purchase file> <catalog size> <purchase count> <number share>");
+            return;
+        }
+        int catalogSize = Integer.parseInt(args[2]);
+        InputGenerator generator = new InputGenerator(104);
+        Files.write(Paths.get(args[0]), Arrays.asList(generator.products(catalogSize)));
+        Files.write(Paths.get(args[1]), Arrays.asList(generator.purchases(Integer.parseInt(args[3]), catalogSize, Double.parseDouble(args[4]))));
+    }
+}
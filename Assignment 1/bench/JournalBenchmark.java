@@ -0,0 +1,40 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares writing completed purchases to a PurchaseJournal with writing the
+ * PURCHASE and RETURN lines with FileOutput.writeToFile, which opens the file for every line.
+ * Sample usage (from the Assignment 1 folder):
+ * javac -d out src/*.java bench/*.java
+ * java -cp out JournalBenchmark 20000 256 100
+ */
+public class JournalBenchmark {
+    public static void main(String[] args) throws IOException {
+        int purchases = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        long maxDelay = args.length > 2 ? Long.parseLong(args[2]) : 100;
+
+        File journalFile = File.createTempFile("gmm-journal", ".bin");
+        File textFile = File.createTempFile("gmm-output", ".txt");
+        journalFile.deleteOnExit();
+        textFile.deleteOnExit();
+
+        long time = System.nanoTime();
+        try (PurchaseJournal journal = new PurchaseJournal(journalFile.getPath(), batchSize, maxDelay)) {
+            for (int i = 0; i < purchases; i++) {
+                journal.record(i % 24, (short) 13, (short) 7, 9 - i % 10);
+            }
+        }
+        long journalTime = System.nanoTime() - time;
+
+        time = System.nanoTime();
+        for (int i = 0; i < purchases; i++) {
+            FileOutput.writeToFile(textFile.getPath(), "PURCHASE: You have bought one Cheese Sandwich", true, true);
+            FileOutput.writeToFile(textFile.getPath(), "RETURN: Returning your change: 7 TL", true, true);
+        }
+        long textTime = System.nanoTime() - time;
+
+        System.out.printf("journal (batch %d, synced): %10.0f purchases/s%n", batchSize, purchases * 1e9 / journalTime);
+        System.out.printf("writeToFile per line:       %10.0f purchases/s%n", purchases * 1e9 / textTime);
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Measures the time and the memory allocated by the main operations of the Gym Meal Machine
+ * on random inputs made by InputGenerator.
+ * Every parameter can be given as a comma separated list; all the combinations are measured.
+ * Sample usage (from the Assignment 1 folder):
+ * javac -d out src/*.java bench/*.java
+ * java -cp out MachineBenchmark catalog=24,1000,100000 purchases=100000 numberShare=0,0.5,1
+ */
+public class MachineBenchmark {
+    private static final String[] nutrients = {"CARB", "PROTEIN", "FAT", "CALORIE"};
+    private static final int columns = 4;
+
+    private static int warmupIterations = 3;
+    private static int iterations = 5;
+    private static long sink; // keeps the results alive so the measured code is not removed
+
+    public static void main(String[] args) throws IOException {
+        int[] catalogSizes = {24, 1000, 100000};
+        int[] purchaseCounts = {100000};
+        double[] numberShares = {0, 0.5, 1};
+        for (String arg : args) {
+            String[] parts = arg.split("=");
+            if (parts[0].equals("catalog")) {
+                catalogSizes = Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (parts[0].equals("purchases")) {
+                purchaseCounts = Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (parts[0].equals("numberShare")) {
+                numberShares = Arrays.stream(parts[1].split(",")).mapToDouble(Double::parseDouble).toArray();
+            } else if (parts[0].equals("warmup")) {
+                warmupIterations = Integer.parseInt(parts[1]);
+            } else if (parts[0].equals("iterations")) {
+                iterations = Integer.parseInt(parts[1]);
+            } else {
+                System.out.println("Unknown parameter: " + arg);
+                return;
+            }
+        }
+        for (int catalogSize : catalogSizes) {
+            // the machine is built with catalogSize / columns rows, which must fit in a short
+            if (catalogSize <= 0 || catalogSize > Short.MAX_VALUE * columns) {
+                System.out.println("Catalog size must be between 1 and " + Short.MAX_VALUE * columns + ": " + catalogSize);
+                return;
+            }
+        }
+
+        File outputFile = File.createTempFile("gmm-benchmark", ".txt");
+        outputFile.deleteOnExit();
+        System.out.printf("%-14s %8s %9s %6s %14s %14s%n", "benchmark", "catalog", "purchases", "share", "ns/op", "bytes/op");
+        try (OutputSink output = new OutputSink(outputFile.getPath(), false)) {
+            for (int catalogSize : catalogSizes) {
+                for (int purchaseCount : purchaseCounts) {
+                    for (double numberShare : numberShares) {
+                        run(catalogSize, purchaseCount, numberShare, output);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void run(int catalogSize, int purchaseCount, double numberShare, OutputSink output) {
+        InputGenerator generator = new InputGenerator(104);
+        short rows = (short) ((catalogSize + columns - 1) / columns);
+        String[] productLines = generator.products(catalogSize);
+        String[] purchaseLines = generator.purchases(purchaseCount, rows * columns, numberShare);
+
+        // the purchase lines are read here once, so only the purchase methods are measured
+        ArrayList<int[]> numberPurchases = new ArrayList<>(); // {slot number, money}
+        ArrayList<int[]> valuePurchases = new ArrayList<>(); // {nutrient index, value, money}
+        LineParser parser = new LineParser();
+        for (String line : purchaseLines) {
+            parser.reset(line);
+            parser.nextField();
+            int money = parser.nextMoney();
+            String choice = parser.nextText();
+            if (choice.equals("NUMBER")) {
+                numberPurchases.add(new int[]{parser.nextInt(), money});
+            } else {
+                valuePurchases.add(new int[]{Arrays.asList(nutrients).indexOf(choice), parser.nextInt(), money});
+            }
+        }
+
+        String parameters = String.format("%8d %9d %6.2f", catalogSize, purchaseCount, numberShare);
+        report("fill", parameters, productLines.length, () -> {
+            Machine machine = new Machine(rows, (short) columns);
+            sink += machine.fill(productLines, output);
+        });
+        report("restock", parameters, productLines.length, () -> {
+            Machine machine = new Machine(rows, (short) columns);
+            sink += machine.restock(productLines, output);
+        });
+        if (!numberPurchases.isEmpty()) {
+            report("buyWithNumber", parameters, numberPurchases.size(), filled(rows, productLines, output), machine -> {
+                Purchase purchase = new Purchase(machine);
+                for (int[] p : numberPurchases) {
+                    sink += purchase.buyWithNumber(p[0], (short) p[1], output);
+                }
+            });
+        }
+        if (!valuePurchases.isEmpty()) {
+            report("buyWithValue", parameters, valuePurchases.size(), filled(rows, productLines, output), machine -> {
+                Purchase purchase = new Purchase(machine);
+                for (int[] p : valuePurchases) {
+                    sink += purchase.buyWithValue(p[1], nutrients[p[0]], (short) p[2], output);
+                }
+            });
+        }
+        NutrientQuery[] queries = new NutrientQuery[purchaseCount];
+        String[] queryTexts = generator.queries(purchaseCount);
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = NutrientQuery.parse(queryTexts[i]);
+        }
+        report("buyWithQuery", parameters, queries.length, filled(rows, productLines, output), machine -> {
+            Purchase purchase = new Purchase(machine);
+            for (NutrientQuery query : queries) {
+                sink += purchase.buyWithQuery(query, (short) 60, output);
+            }
+        });
+        report("print", parameters, 1, filled(rows, productLines, output), machine -> machine.print(output));
+        // printing again without any change only copies the lines kept from the first print
+        report("printUnchanged", parameters, 1, () -> {
+            Machine machine = filled(rows, productLines, output).create();
+            machine.print(output);
+            return machine;
+        }, machine -> machine.print(output));
+        report("endToEnd", parameters, purchaseLines.length, () -> {
+            Machine machine = new Machine(rows, (short) columns);
+            machine.fill(productLines, output);
+            machine.print(output);
+            machine.buyFromMachine(purchaseLines, output);
+            machine.print(output);
+        });
+    }
+
+    /**
+     * Gives a new machine filled with the products for every iteration; filling is not measured.
+     */
+    private static Setup filled(short rows, String[] productLines, OutputSink output) {
+        return () -> {
+            Machine machine = new Machine(rows, (short) columns);
+            machine.fill(productLines, output);
+            return machine;
+        };
+    }
+
+    private interface Setup {
+        Machine create();
+    }
+
+    private interface MachineTask {
+        void run(Machine machine);
+    }
+
+    private static void report(String name, String parameters, int operations, Runnable task) {
+        report(name, parameters, operations, () -> null, machine -> task.run());
+    }
+
+    /**
+     * Runs the task for the warm up iterations first and then measures the average time and allocated memory of one operation.
+     */
+    private static void report(String name, String parameters, int operations, Setup setup, MachineTask task) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        for (int i = 0; i < warmupIterations; i++) {
+            task.run(setup.create());
+        }
+        long totalTime = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            Machine machine = setup.create();
+            long bytes = threads.getThreadAllocatedBytes(id);
+            long time = System.nanoTime();
+            task.run(machine);
+            totalTime += System.nanoTime() - time;
+            totalBytes += threads.getThreadAllocatedBytes(id) - bytes;
+        }
+        long count = (long) iterations * Math.max(operations, 1);
+        System.out.printf("%-14s %s %14.1f %14.1f%n", name, parameters, (double) totalTime / count, (double) totalBytes / count);
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Checks that payment terminals buying from one machine at the same time never sell an item twice.
+ * Many more purchases are made than the machine has items, by slot number and by nutrient value,
+ * so the terminals keep racing for the same slots. The random purchases may still miss the last items,
+ * so the sales found in the terminal outputs and the stock left in every slot must add up to its
+ * starting stock, and no slot may be left with a negative stock.
+ * Sample usage (from the Assignment 1 folder):
+ * javac -d out src/*.java bench/*.java
+ * java -cp out TerminalStressCheck 8 20 6 4
+ */
+public class TerminalStressCheck {
+    public static void main(String[] args) throws IOException {
+        int terminals = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        short rows = args.length > 2 ? Short.parseShort(args[2]) : 6;
+        short columns = args.length > 3 ? Short.parseShort(args[3]) : 4;
+        int slotCount = rows * columns;
+
+        int failures = 0;
+        for (int round = 0; round < rounds; round++) {
+            failures += runRound(round, terminals, rows, columns, slotCount);
+        }
+        if (failures == 0) {
+            System.out.println("OK: " + rounds + " rounds of " + terminals + " terminals on " + slotCount + " slots.");
+        } else {
+            System.out.println("FAILED: " + failures + " problems found.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Fills a machine, empties it with the terminals and compares the sales with the starting stock.
+     *
+     * @return Number of problems found.
+     */
+    private static int runRound(int round, int terminals, short rows, short columns, int slotCount) throws IOException {
+        Random random = new Random(round);
+
+        // every slot gets a product of its own, so a sale tells which slot it came from
+        ArrayList<String> productLines = new ArrayList<>();
+        int[] startingStock = new int[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            startingStock[slot] = 1 + random.nextInt(10);
+            for (int i = 0; i < startingStock[slot]; i++) {
+                productLines.add("P" + slot + "\t" + (1 + random.nextInt(20)) + "\t" + random.nextInt(40) + " " + random.nextInt(40) + " " + random.nextInt(20));
+            }
+        }
+        Machine machine = new Machine(rows, columns);
+        machine.fill(productLines.toArray(new String[0]), OutputSink.discard());
+        int totalStock = 0;
+        for (int stock : startingStock) {
+            totalStock += stock;
+        }
+
+        // every terminal alone asks for more than the whole machine
+        String[][] purchaseInputs = new String[terminals][];
+        OutputSink[] outputs = new OutputSink[terminals];
+        File[] outputFiles = new File[terminals];
+        for (int t = 0; t < terminals; t++) {
+            purchaseInputs[t] = new String[totalStock * 2];
+            for (int i = 0; i < purchaseInputs[t].length; i++) {
+                if (random.nextInt(4) == 0) {
+                    purchaseInputs[t][i] = "CASH\t20 20\tCARB\t" + random.nextInt(40);
+                } else {
+                    purchaseInputs[t][i] = "CASH\t20 20\tNUMBER\t" + random.nextInt(slotCount);
+                }
+            }
+            outputFiles[t] = File.createTempFile("gmm-terminal", ".txt");
+            outputFiles[t].deleteOnExit();
+            outputs[t] = new OutputSink(outputFiles[t].getPath(), false);
+        }
+        PaymentTerminals.run(machine, purchaseInputs, outputs);
+        for (OutputSink output : outputs) {
+            output.close();
+        }
+
+        // every item must be sold at most once, and the ones not sold must still be in the machine
+        HashMap<String, Integer> sold = new HashMap<>();
+        int totalSold = 0;
+        for (File outputFile : outputFiles) {
+            for (String line : FileInput.readFile(outputFile.getPath(), true, false)) {
+                if (line.startsWith("PURCHASE: You have bought one ")) {
+                    sold.merge(line.substring("PURCHASE: You have bought one ".length()), 1, Integer::sum);
+                    totalSold++;
+                }
+            }
+        }
+
+        int problems = 0;
+        int totalLeft = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int soldFromSlot = sold.getOrDefault("P" + slot, 0);
+            if (soldFromSlot > startingStock[slot]) {
+                System.out.println("Round " + round + ": slot " + slot + " sold " + soldFromSlot + " items of " + startingStock[slot] + ".");
+                problems++;
+            }
+            Product product = machine.getProductSlots(slot / columns, slot % columns);
+            int stockLeft = product == null ? 0 : product.getStock();
+            totalLeft += stockLeft;
+            if (stockLeft < 0) {
+                System.out.println("Round " + round + ": slot " + slot + " has a negative stock " + stockLeft + ".");
+                problems++;
+            }
+            if (soldFromSlot + stockLeft != startingStock[slot]) {
+                System.out.println("Round " + round + ": slot " + slot + " sold " + soldFromSlot + " and kept " + stockLeft + " of " + startingStock[slot] + ".");
+                problems++;
+            }
+        }
+        if (totalSold != totalStock - totalLeft) {
+            System.out.println("Round " + round + ": " + totalSold + " items sold and " + totalLeft + " left of " + totalStock + ".");
+            problems++;
+        }
+        return problems;
+    }
+}
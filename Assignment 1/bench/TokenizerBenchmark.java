@@ -0,0 +1,67 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the memory allocated for reading purchase lines with String.split
+ * and with LineParser.
+ * Sample usage (from the Assignment 1 folder):
+ * javac -d out src/*.java bench/*.java
+ * java -cp out TokenizerBenchmark
+ */
+public class TokenizerBenchmark {
+    private static final String[] lines = {
+            "CASH\t5 10\tCARB\t30",
+            "CASH\t20 1 1 1 1\tNUMBER\t5",
+            "CASH\t20 10\tPROTEIN\t30",
+            "CASH\t1 1 5 10\tFAT\t10",
+            "CASH\t10 20\tCALORIE\t250"
+    };
+    private static final String[] paymentTypes = {"CASH"};
+    private static final String[] choices = {"NUMBER", "CARB", "PROTEIN", "FAT", "CALORIE"};
+    private static long sink; // keeps the results alive so the loops are not removed
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        // warm up both paths first so that the measured rounds run compiled code
+        splitPath(rounds / 4);
+        parserPath(rounds / 4);
+
+        long splitBytes = measure(() -> splitPath(rounds));
+        long parserBytes = measure(() -> parserPath(rounds));
+        System.out.printf("split:  %.1f bytes per purchase%n", (double) splitBytes / rounds);
+        System.out.printf("parser: %.1f bytes per purchase%n", (double) parserBytes / rounds);
+    }
+
+    /**
+     * The way Machine.buyFromMachine read the lines before LineParser.
+     */
+    private static void splitPath(int rounds) {
+        for (int k = 0; k < rounds; k++) {
+            String[] parts = lines[k % lines.length].split("\t");
+            String[] givenMoney = parts[1].split("\\s");
+            short[] money = new short[givenMoney.length];
+            for (int i = 0; i < givenMoney.length; i++) {
+                money[i] = Short.parseShort(givenMoney[i]);
+            }
+            sink += money[0] + parts[2].length() + Integer.parseInt(parts[3]);
+        }
+    }
+
+    private static void parserPath(int rounds) {
+        LineParser parser = new LineParser();
+        for (int k = 0; k < rounds; k++) {
+            parser.reset(lines[k % lines.length]);
+            parser.nextText(paymentTypes);
+            short money = parser.nextMoney();
+            String choice = parser.nextText(choices);
+            sink += money + choice.length() + parser.nextInt();
+        }
+    }
+
+    private static long measure(Runnable task) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        task.run();
+        return threads.getThreadAllocatedBytes(id) - before;
+    }
+}
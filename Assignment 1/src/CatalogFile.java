@@ -0,0 +1,282 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * A binary file of product definitions that machines map to memory read-only. All the machine processes
+ * on a computer that open the same file share one copy of it in the page cache, and it is used without
+ * being parsed: a product name is found through a hash table in the file, and its values are read from
+ * the offset the table gives.
+ *
+ * File format (big-endian), version 1:
+ * magic "GMMC", version (short), product count (int), table size (int, a power of two),
+ * then the table: for every entry, the String.hashCode of the name (int) and the offset of its product (int, -1 if empty),
+ * then for every product: name length (unsigned short), UTF-8 bytes of the name,
+ * price (short), protein, carb, fat, calorie (float).
+ */
+public class CatalogFile {
+    private static final int magic = 0x474D4D43; // "GMMC"
+    private static final short version = 1;
+    private static final int headerSize = 14;
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int tableMask;
+
+    private CatalogFile(MappedByteBuffer buffer, int count, int tableSize) {
+        this.buffer = buffer;
+        this.count = count;
+        this.tableMask = tableSize - 1;
+    }
+
+    /**
+     * Writes a catalog file from a product file. If a product has more than one line, its first line is used.
+     * Sample usage: java CatalogFile Product.txt catalog.gmmc
+     *
+     * @param args Product file and catalog file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("ERROR: Give the product file and the catalog file to write.");
+            return;
+        }
+        String[] productLines = FileInput.readFile(args[0], true, true);
+        if (productLines == null) {
+            return;
+        }
+        try {
+            write(productLines, args[1]);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the products of the given product lines to a catalog file.
+     *
+     * @param productLines Lines in the format of the product file.
+     * @param path         Path for the catalog file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(String[] productLines, String path) throws IOException {
+        LineParser parser = new LineParser();
+        HashSet<String> names = new HashSet<>();
+        ArrayList<String> lines = new ArrayList<>(); // the first line of every product
+        for (String line : productLines) {
+            parser.reset(line);
+            if (names.add(parser.nextText())) {
+                lines.add(line);
+            }
+        }
+        int tableSize = Integer.highestOneBit(Math.max(lines.size(), 1) * 2 - 1) * 2; // at most half full
+
+        // the products are written after the table, so their offsets are known before writing
+        int[] hashes = new int[tableSize];
+        int[] offsets = new int[tableSize];
+        Arrays.fill(offsets, -1);
+        byte[][] nameBytes = new byte[lines.size()][];
+        long offset = headerSize + 8L * tableSize;
+        for (int i = 0; i < lines.size(); i++) {
+            parser.reset(lines.get(i));
+            String name = parser.nextText();
+            nameBytes[i] = name.getBytes(StandardCharsets.UTF_8);
+            if (nameBytes[i].length > 0xFFFF) {
+                throw new IOException("Product name is too long to be saved: " + name.substring(0, 20) + "...");
+            }
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("Too many products for a catalog file.");
+            }
+            int index = slotOf(name.hashCode(), tableSize - 1);
+            while (offsets[index] != -1) {
+                index = (index + 1) & (tableSize - 1);
+            }
+            hashes[index] = name.hashCode();
+            offsets[index] = (int) offset;
+            offset += 2 + nameBytes[i].length + 2 + 16;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(magic);
+            out.writeShort(version);
+            out.writeInt(lines.size());
+            out.writeInt(tableSize);
+            for (int i = 0; i < tableSize; i++) {
+                out.writeInt(hashes[i]);
+                out.writeInt(offsets[i]);
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                parser.reset(lines.get(i));
+                parser.nextField();
+                short price = parser.nextShort();
+                parser.nextField();
+                float protein = parser.nextFloat();
+                float carb = parser.nextFloat();
+                float fat = parser.nextFloat();
+                out.writeShort(nameBytes[i].length);
+                out.write(nameBytes[i]);
+                out.writeShort(price);
+                out.writeFloat(protein);
+                out.writeFloat(carb);
+                out.writeFloat(fat);
+                out.writeFloat(Product.findCalorie(protein, carb, fat));
+            }
+        }
+    }
+
+    /**
+     * Maps the catalog file at given path to memory, read-only.
+     *
+     * @param path Path to the catalog file.
+     * @return The catalog.
+     * @throws IOException If the file cannot be read or it is not a catalog file.
+     */
+    public static CatalogFile open(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < headerSize || buffer.getInt(0) != magic) {
+                throw new IOException("\"" + path + "\" is not a catalog file.");
+            }
+            short fileVersion = buffer.getShort(4);
+            if (fileVersion != version) {
+                throw new IOException("Catalog version " + fileVersion + " is not supported.");
+            }
+            int tableSize = buffer.getInt(10);
+            if (tableSize <= 0 || Integer.bitCount(tableSize) != 1 || headerSize + 8L * tableSize > buffer.capacity()) {
+                throw new IOException("\"" + path + "\" is not a valid catalog file.");
+            }
+            int count = buffer.getInt(6);
+            if (count < 0 || count >= tableSize || !recordsFit(buffer, tableSize)) {
+                throw new IOException("\"" + path + "\" is not a valid catalog file.");
+            }
+            return new CatalogFile(buffer, count, tableSize);
+        }
+    }
+
+    /**
+     * Checks that every offset in the table points to a product that is inside the file,
+     * and that the table has an empty entry for the searches to stop at.
+     */
+    private static boolean recordsFit(MappedByteBuffer buffer, int tableSize) {
+        int limit = buffer.limit();
+        int tableEnd = headerSize + 8 * tableSize;
+        boolean hasEmpty = false;
+        for (int index = 0; index < tableSize; index++) {
+            int offset = buffer.getInt(headerSize + 8 * index + 4);
+            if (offset == -1) {
+                hasEmpty = true;
+            } else if (offset < tableEnd || offset > limit - 2
+                    || offset + 2L + (buffer.getShort(offset) & 0xFFFF) + 18 > limit) {
+                return false;
+            }
+        }
+        return hasEmpty;
+    }
+
+    /**
+     * Finds the product with the given name.
+     *
+     * @param name Name of the product.
+     * @return The offset of the product in the file, -1 if there is no such product.
+     */
+    public int find(String name) {
+        int hash = name.hashCode();
+        int index = slotOf(hash, tableMask);
+        for (int probes = 0; probes <= tableMask; probes++) {
+            int entry = headerSize + 8 * index;
+            int offset = buffer.getInt(entry + 4);
+            if (offset == -1) {
+                return -1;
+            }
+            if (buffer.getInt(entry) == hash && nameEquals(offset, name)) {
+                return offset;
+            }
+            index = (index + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int offset, String name) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        int start = offset + 2;
+        // ASCII names are compared without encoding them
+        if (length == name.length()) {
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+                if (buffer.get(start + i) != c) {
+                    return false;
+                }
+            }
+            if (ascii) {
+                return true;
+            }
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slotOf(int hash, int mask) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // values of the product at the given offset
+
+    public String getName(int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+        ByteBuffer view = buffer.duplicate(); // the position of the shared buffer is not changed
+        view.position(offset + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int valuesOf(int offset) {
+        return offset + 2 + (buffer.getShort(offset) & 0xFFFF);
+    }
+
+    public short getPrice(int offset) {
+        return buffer.getShort(valuesOf(offset));
+    }
+
+    public float getProtein(int offset) {
+        return buffer.getFloat(valuesOf(offset) + 2);
+    }
+
+    public float getCarb(int offset) {
+        return buffer.getFloat(valuesOf(offset) + 6);
+    }
+
+    public float getFat(int offset) {
+        return buffer.getFloat(valuesOf(offset) + 10);
+    }
+
+    public float getCalorie(int offset) {
+        return buffer.getFloat(valuesOf(offset) + 14);
+    }
+}
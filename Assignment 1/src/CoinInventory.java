@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * The coins inside a machine, used to give the change of a purchase with the coins it really has.
+ * A sale is refused if its exact change cannot be made from the coins.
+ *
+ * Which amounts can be made is kept in a table with one layer for every denomination:
+ * reachable[d][a] is true if the amount a can be made from the coins of the first d + 1 denominations,
+ * using no more coins of each than the machine has. The layers also show how many coins of each denomination to give.
+ *
+ * A layer depends only on the layers below it, so when the coins of a denomination change, only its layer and
+ * the layers above it are stale. They are built again when a change is next asked, one pass over the amounts
+ * for each stale layer: O((denominations - d) x largest change) after the coins of denomination d change.
+ * A sale changes the coins twice (the paid coins in, the change out), and both are rebuilt together by the next check.
+ * Checking an amount when no coins have changed is a single lookup.
+ */
+public class CoinInventory {
+    public static final short[] denominations = {1, 5, 10, 20, 50, 100, 200};
+    private static final byte[] indexOfValue = new byte[201]; // index of a denomination by its value, -1 for other values
+
+    static {
+        Arrays.fill(indexOfValue, (byte) -1);
+        for (int i = 0; i < denominations.length; i++) {
+            indexOfValue[denominations[i]] = (byte) i;
+        }
+    }
+
+    private final int[] counts = new int[denominations.length];
+    private boolean[][] reachable; // reachable[d][a]: a can be made from the denominations up to d
+    private int[] used; // coins of the current denomination used for each amount while a layer is built
+    private int staleFrom = 0; // the lowest layer that is not up to date, denominations.length if all of them are
+
+    /**
+     * Creates an empty inventory.
+     *
+     * @param maxChange The largest change expected; larger changes make the table grow when they are asked.
+     */
+    public CoinInventory(int maxChange) {
+        reachable = new boolean[denominations.length][Math.max(maxChange, 1) + 1];
+        used = new int[reachable[0].length];
+    }
+
+    /**
+     * Finds the index of a denomination.
+     *
+     * @param value The value of the money.
+     * @return The index of the value in denominations, -1 if it is not a valid money.
+     */
+    public static int indexOf(int value) {
+        return value >= 0 && value < indexOfValue.length ? indexOfValue[value] : -1;
+    }
+
+    /**
+     * Puts coins into the machine.
+     *
+     * @param value The value of the coins, one of denominations.
+     * @param count Number of coins.
+     */
+    public synchronized void add(short value, int count) {
+        int index = indexOf(value);
+        if (index == -1) {
+            throw new IllegalArgumentException(value + " TL is not a valid money.");
+        }
+        counts[index] += count;
+        staleFrom = Math.min(staleFrom, index);
+    }
+
+    public synchronized int getCount(short value) {
+        int index = indexOf(value);
+        return index == -1 ? 0 : counts[index];
+    }
+
+    /**
+     * Checks if the given change can be made exactly from the coins in the machine.
+     *
+     * @param amount The change.
+     * @return True if the change can be given.
+     */
+    public synchronized boolean canGiveChange(int amount) {
+        if (amount < 0) {
+            return false;
+        }
+        build(amount);
+        return reachable[denominations.length - 1][amount];
+    }
+
+    /**
+     * Takes the coins paid for a sale and gives its change. If the change cannot be made,
+     * even with the paid coins, nothing changes.
+     *
+     * @param paid      The money given by the user; values that are not valid money are left out.
+     * @param paidCount Number of values in use in the paid array.
+     * @param change    The change to give.
+     * @return Number of coins of each denomination given as change, null if the change cannot be made.
+     */
+    public synchronized int[] sell(short[] paid, int paidCount, int change) {
+        addPaid(paid, paidCount, 1);
+        if (!canGiveChange(change)) {
+            addPaid(paid, paidCount, -1);
+            return null;
+        }
+
+        // as many of the largest coins as possible are given, as long as the rest can be made from the smaller ones
+        int[] given = new int[denominations.length];
+        int left = change;
+        for (int index = denominations.length - 1; index > 0 && left > 0; index--) {
+            int value = denominations[index];
+            int count = Math.min(counts[index], left / value);
+            while (!reachable[index - 1][left - count * value]) {
+                count--;
+            }
+            given[index] = count;
+            left -= count * value;
+        }
+        given[0] = left; // the 1 TL coins, the first layer has them all
+        for (int index = 0; index < denominations.length; index++) {
+            if (given[index] > 0) {
+                counts[index] -= given[index];
+                staleFrom = Math.min(staleFrom, index);
+            }
+        }
+        return given;
+    }
+
+    private void addPaid(short[] paid, int paidCount, int sign) {
+        for (int i = 0; i < paidCount; i++) {
+            int index = indexOf(paid[i]);
+            if (index != -1) {
+                counts[index] += sign;
+                staleFrom = Math.min(staleFrom, index);
+            }
+        }
+    }
+
+    /**
+     * Writes the coins given as change, such as "1 x 5 TL, 2 x 1 TL", the largest first.
+     *
+     * @param given Number of coins of each denomination, as returned by sell.
+     * @return The coins as text.
+     */
+    public static String describe(int[] given) {
+        StringBuilder text = new StringBuilder();
+        for (int index = given.length - 1; index >= 0; index--) {
+            if (given[index] > 0) {
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(given[index]).append(" x ").append(denominations[index]).append(" TL");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Builds the stale layers again, or the whole table if it does not reach the amount.
+     */
+    private void build(int amount) {
+        if (amount >= used.length) {
+            reachable = new boolean[denominations.length][Math.max(amount + 1, used.length * 2)];
+            used = new int[reachable[0].length];
+            staleFrom = 0;
+        }
+        for (int index = staleFrom; index < denominations.length; index++) {
+            boolean[] layer = reachable[index];
+            int value = denominations[index];
+            // an amount can be made if the smaller denominations make it, or one more coin of this one
+            // is added to an amount that still has a coin of it left
+            for (int a = 0; a < layer.length; a++) {
+                if (index == 0 ? a == 0 : reachable[index - 1][a]) {
+                    layer[a] = true;
+                    used[a] = 0;
+                } else if (a >= value && layer[a - value] && used[a - value] < counts[index]) {
+                    layer[a] = true;
+                    used[a] = used[a - value] + 1;
+                } else {
+                    layer[a] = false;
+                }
+            }
+        }
+        staleFrom = denominations.length;
+    }
+}
@@ -1,7 +1,12 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class FileInput {
     /**
@@ -27,4 +32,80 @@ public class FileInput {
             return null;
         }
     }
+
+    /**
+     * Opens the file at the given path to be read line by line.
+     * Unlike readFile, only one line is kept in memory at a time, so it can be used for very large files.
+     *
+     * @param path              Path to the file that is going to be read.
+     * @param discardEmptyLines If true, skips empty lines with respect to trim; else, it gives all the lines from the file.
+     * @param trim              Trim status; if true, trims each line; else, it leaves each line as-is.
+     * @return The lines of the file, returns null if there is not such a file or this program does not have sufficient permissions to read that file.
+     */
+    public static LineIterator readLines(String path, boolean discardEmptyLines, boolean trim) {
+        try {
+            return new LineIterator(Files.newBufferedReader(Paths.get(path)), discardEmptyLines, trim);
+        } catch (IOException e) { //Returns null if there is no such a file.
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Gives the lines of a reader one by one, with the same empty line and trim options as readFile.
+     * Closes the reader when the end of the file is reached.
+     */
+    public static class LineIterator implements Iterator<String>, Closeable {
+        private final BufferedReader reader;
+        private final boolean discardEmptyLines;
+        private final boolean trim;
+        private String nextLine; // the line that is going to be given by next(), null if it is not read yet or the file is finished
+        private boolean finished = false;
+
+        public LineIterator(BufferedReader reader, boolean discardEmptyLines, boolean trim) {
+            this.reader = reader;
+            this.discardEmptyLines = discardEmptyLines;
+            this.trim = trim;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextLine != null) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (discardEmptyLines && line.trim().isEmpty()) {
+                        continue;
+                    }
+                    nextLine = trim ? line.trim() : line;
+                    return true;
+                }
+                close(); // end of the file
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            nextLine = null;
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            reader.close();
+        }
+    }
 }
@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several Gym Meal Machines in one program.
+ * Every machine works on its own files, so each output is the same as running Main for that machine alone.
+ * The machines share one product catalog, so a product sold by many machines is kept in memory once.
+ */
+public class Fleet {
+    /**
+     * Takes the files of the machines as (product file, purchase file, output file) triples.
+     * Sample usage: java Fleet Product_1.txt Purchase_1.txt Output_1.txt Product_2.txt Purchase_2.txt Output_2.txt
+     *
+     * @param args Paths of the files, three for each machine.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args.length % 3 != 0) {
+            System.out.println("ERROR: Give three paths (product, purchase, output) for every machine.");
+            return;
+        }
+        int threads = Math.min(args.length / 3, Runtime.getRuntime().availableProcessors());
+        run(args, threads);
+    }
+
+    /**
+     * Runs the machines on a fixed number of threads and waits for all of them to finish.
+     *
+     * @param paths   Paths of the files, three for each machine.
+     * @param threads Number of machines that can run at the same time.
+     */
+    public static void run(String[] paths, int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayList<Future<?>> machines = new ArrayList<>();
+        ProductCatalog catalog = new ProductCatalog();
+        for (int i = 0; i + 2 < paths.length; i += 3) {
+            String productPath = paths[i];
+            String purchasePath = paths[i + 1];
+            String output = paths[i + 2];
+            machines.add(executor.submit(() -> Main.run(productPath, purchasePath, output, catalog)));
+        }
+        try {
+            for (Future<?> machine : machines) {
+                try {
+                    machine.get();
+                } catch (ExecutionException e) { // one broken machine does not stop the others
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
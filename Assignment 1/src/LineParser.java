@@ -0,0 +1,216 @@
+/**
+ * Reads the tab separated fields and the space separated numbers of an input line
+ * without splitting it into new strings.
+ * One parser is reused for all the lines of a file, so reading numbers does not create any objects.
+ */
+public class LineParser {
+    // 10^0 to 10^10 are exact in float, so dividing by them gives the same result as Float.parseFloat
+    private static final float[] powersOfTen = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    private String line;
+    private int position; // index of the next character to read
+    private int fieldEnd; // index of the tab ending the current field, or the length of the line
+    private boolean wrongMoney; // true if the last money field read had a value that is not a valid money
+
+    /**
+     * Starts reading a new line from its first field.
+     *
+     * @param line The line to read.
+     */
+    public void reset(String line) {
+        this.line = line;
+        this.position = 0;
+        findFieldEnd();
+    }
+
+    /**
+     * Moves to the start of the next field, skipping what is left of the current one.
+     */
+    public void nextField() {
+        position = Math.min(fieldEnd + 1, line.length());
+        findFieldEnd();
+    }
+
+    /**
+     * Checks if there is another number in the current field.
+     *
+     * @return True if the current field has more characters other than spaces.
+     */
+    public boolean hasNumber() {
+        skipSpaces();
+        return position < fieldEnd;
+    }
+
+    /**
+     * Reads the whole current field as a string and moves to the next field.
+     *
+     * @return The current field.
+     */
+    public String nextText() {
+        String text = line.substring(position, fieldEnd);
+        nextField();
+        return text;
+    }
+
+    /**
+     * Reads the current field and moves to the next field. If the field is one of the
+     * given choices, the choice itself is returned, so no new string is created.
+     *
+     * @param choices The expected values of the field.
+     * @return The matching choice, or the field itself if none of them matches.
+     */
+    public String nextText(String[] choices) {
+        int length = fieldEnd - position;
+        for (String choice : choices) {
+            if (choice.length() == length && line.startsWith(choice, position)) {
+                nextField();
+                return choice;
+            }
+        }
+        return nextText();
+    }
+
+    /**
+     * Reads the money values of the current field, adds up the valid ones and moves to the next field.
+     * Values that are not a valid money (see Purchase.isValidMoney) are left out of the total,
+     * the same as a purchase leaves them out; hadWrongMoney tells afterwards if there were any.
+     *
+     * @return Total of the valid money values.
+     * @throws NumberFormatException If a value is not a short.
+     */
+    public short nextMoney() {
+        wrongMoney = false;
+        short total = 0;
+        while (hasNumber()) {
+            short money = nextShort();
+            if (Purchase.isValidMoney(money) == 0) {
+                total += money;
+            } else {
+                wrongMoney = true;
+            }
+        }
+        nextField();
+        return total;
+    }
+
+    /**
+     * Checks if the last money field read by nextMoney had a value that is not a valid money.
+     *
+     * @return True if there was a wrong money.
+     */
+    public boolean hadWrongMoney() {
+        return wrongMoney;
+    }
+
+    /**
+     * Reads the next number of the current field as an int.
+     *
+     * @return The number.
+     * @throws NumberFormatException If the next token is not an int.
+     */
+    public int nextInt() {
+        skipSpaces();
+        int start = position;
+        int end = tokenEnd();
+        position = end;
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        // at most 9 digits cannot overflow, anything else is left to Integer.parseInt
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(line.substring(start, end));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return Integer.parseInt(line.substring(start, end)); // throws the usual exception
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the next number of the current field as a short.
+     *
+     * @return The number.
+     * @throws NumberFormatException If the next token is not a short.
+     */
+    public short nextShort() {
+        int start = position;
+        int value = nextInt();
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            return Short.parseShort(line.substring(start, position).trim()); // throws the usual exception
+        }
+        return (short) value;
+    }
+
+    /**
+     * Reads the next number of the current field as a float.
+     * Plain decimals with up to 7 digits are computed directly, others are given to Float.parseFloat.
+     *
+     * @return The number, same as Float.parseFloat would give.
+     * @throws NumberFormatException If the next token is not a float.
+     */
+    public float nextFloat() {
+        skipSpaces();
+        int start = position;
+        int end = tokenEnd();
+        position = end;
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == '.' && !point) {
+                point = true;
+            } else if (c >= '0' && c <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (point) {
+                    fractionDigits++;
+                }
+            } else {
+                return Float.parseFloat(line.substring(start, end)); // exponents, long numbers and wrong input
+            }
+        }
+        // the mantissa and the power of ten are both exact floats here, so one division rounds like Float.parseFloat
+        if (digits == 0 || mantissa > (1 << 24) || fractionDigits >= powersOfTen.length) {
+            return Float.parseFloat(line.substring(start, end));
+        }
+        float value = (float) mantissa / powersOfTen[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private void findFieldEnd() {
+        int tab = line.indexOf('\t', position);
+        fieldEnd = tab == -1 ? line.length() : tab;
+    }
+
+    private void skipSpaces() {
+        while (position < fieldEnd && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    private int tokenEnd() {
+        int end = position;
+        while (end < fieldEnd && !Character.isWhitespace(line.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+}
@@ -1,17 +1,299 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+
 /**
  * Class representing the machine containing products.
  */
 public class Machine {
-    private static final short rowNumber = 6;
-    private static final short columnNumber = 4;
-    private static Product[][] productSlots = new Product[rowNumber][columnNumber];
+    private final short rowNumber;
+    private final short columnNumber;
+    private final SlotStore slots; // the products of all slots, slot number is row * columnNumber + col
+    private final ProductCatalog catalog; // the product types of the slots, can be shared with other machines
+
+    /*
+    Indexes kept next to the slots so that fill does not have to scan the whole machine for every line.
+    Slots are numbered in row-major order (row * columnNumber + col), so the smallest number in a set is
+    always the slot the old nested loops would have found first.
+     */
+    private final HashMap<String, TreeSet<Integer>> openSlotsByName = new HashMap<>(); // slots with stock below 10, per product name
+    private final TreeSet<Integer> freeSlots = new TreeSet<>(); // empty slots
+
+    // Counters updated together with the slots, so that the machine does not have to be scanned to know how full it is.
+    private int occupiedSlots = 0; // slots with a product
+    private int fullSlots = 0; // slots with 10 items
+    private int totalStock = 0; // items in the whole machine
+
+    // For every nutrient, the occupied slots sorted by the value of that nutrient. Used by the value based purchases.
+    private static final String[] nutrients = {"CARB", "PROTEIN", "FAT", "CALORIE"};
+    private final HashMap<String, ValueIndex> valueIndexes = new HashMap<>();
+    // The occupied slots by their price and all nutrients together. Used by the MATCH purchases.
+    private final NutrientIndex nutrientIndex;
+    private final float[] point = new float[NutrientIndex.dimensions.length]; // reused to give the values of a slot to nutrientIndex
+
+    private PurchaseJournal journal; // records the completed purchases if it is set
+    private CoinInventory coinInventory; // the coins the change is given from, null if the machine can always give change
+    private volatile MetricsRecorder recorder = MetricsRecorder.NONE; // receives the sales, failures and times of the operations
+
+    private final byte[][] renderedRows; // the lines print wrote for each row, made again only after a slot of the row changes
+
+    private static final String[] paymentTypes = {"CASH"};
+    private static final String[] purchaseChoices = {"NUMBER", "CARB", "PROTEIN", "FAT", "CALORIE", "MATCH"};
 
-    public static Product getProductSlots(int row, int col) {
-        return productSlots[row][col];
+    /**
+     * Creates the default 6x4 machine.
+     */
+    public Machine() {
+        this((short) 6, (short) 4);
     }
 
-    public static void setProductSlots(int row, int col, Product product) {
-        productSlots[row][col] = product;
+    /**
+     * Creates an empty machine with the given size.
+     *
+     * @param rows    Number of rows of the machine.
+     * @param columns Number of columns of the machine.
+     */
+    public Machine(short rows, short columns) {
+        this(rows, columns, new ProductCatalog());
+    }
+
+    /**
+     * Creates an empty machine with the given size, taking its product types from the given catalog.
+     * Machines selling the same products can share a catalog, so every product type is kept once.
+     *
+     * @param rows    Number of rows of the machine.
+     * @param columns Number of columns of the machine.
+     * @param catalog The catalog of the product types.
+     */
+    public Machine(short rows, short columns, ProductCatalog catalog) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("Machine size must be positive.");
+        }
+        rowNumber = rows;
+        columnNumber = columns;
+        this.catalog = catalog;
+        slots = new SlotStore(rowNumber * columnNumber, columnNumber, catalog);
+        renderedRows = new byte[rowNumber][];
+        nutrientIndex = new NutrientIndex(rowNumber * columnNumber);
+        for (String nutrient : nutrients) {
+            valueIndexes.put(nutrient, new ValueIndex(rowNumber * columnNumber));
+        }
+        for (int slot = 0; slot < rowNumber * columnNumber; slot++) {
+            freeSlots.add(slot);
+        }
+    }
+
+    /**
+     * Returns the product in the given slot.
+     *
+     * @param row Row of the slot.
+     * @param col Column of the slot.
+     * @return A view of the product in the slot, null if the slot is empty.
+     */
+    public synchronized Product getProductSlots(int row, int col) {
+        int slot = row * columnNumber + col;
+        return slots.isEmpty(slot) ? null : new Product(slots, slot);
+    }
+
+    public PurchaseJournal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(PurchaseJournal journal) {
+        this.journal = journal;
+    }
+
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    public synchronized CoinInventory getCoinInventory() {
+        return coinInventory;
+    }
+
+    /**
+     * Sets the coins of the machine. After this, the change of every sale is given from these coins
+     * and a sale is refused if its exact change cannot be made.
+     *
+     * @param coinInventory The coins, null to give change without counting coins.
+     */
+    public synchronized void setCoinInventory(CoinInventory coinInventory) {
+        this.coinInventory = coinInventory;
+    }
+
+    public MetricsRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Sets the recorder that receives the metrics of this machine.
+     *
+     * @param recorder The recorder, MetricsRecorder.NONE to stop recording.
+     */
+    public void setRecorder(MetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public short getRowNumber() {
+        return rowNumber;
+    }
+
+    public short getColumnNumber() {
+        return columnNumber;
+    }
+
+    public int getSlotCount() {
+        return rowNumber * columnNumber;
+    }
+
+    /**
+     * Finds how many more items the machine can take.
+     *
+     * @return The number of items that can still be put into the machine.
+     */
+    public synchronized int remainingCapacity() {
+        return getSlotCount() * 10 - totalStock;
+    }
+
+    public synchronized int getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    /**
+     * Finds the slot matching all the constraints of the query with a price the budget can pay.
+     *
+     * @param query  The constraints of the purchase.
+     * @param budget The money that can be paid.
+     * @return The cheapest matching slot, or the closest one to the targets if the query has any; -1 if none matches.
+     */
+    public synchronized int findSlotMatching(NutrientQuery query, float budget) {
+        return nutrientIndex.find(query, budget);
+    }
+
+    /**
+     * Finds the first slot in row-major order whose product has the given nutrient
+     * within 5 of the wanted value.
+     *
+     * @param nutrient    One of CARB, PROTEIN, FAT and CALORIE.
+     * @param wantedValue The wanted value of the nutrient.
+     * @return The slot number, or -1 if there is no such product.
+     */
+    public synchronized int findSlotWithValue(String nutrient, int wantedValue) {
+        ValueIndex index = valueIndexes.get(nutrient);
+        if (index == null) {
+            return -1;
+        }
+        // the smallest slot number in the window is the first one in the machine
+        return index.findFirst((float) (wantedValue - 5), (float) (wantedValue + 5));
+    }
+
+    /**
+     * Adds or removes an occupied slot from the nutrient indexes.
+     *
+     * @param slot The slot number.
+     * @param add  True if the slot has been filled, false if it is going to be emptied.
+     */
+    private void updateValueIndexes(int slot, boolean add) {
+        for (String nutrient : nutrients) {
+            if (add) {
+                valueIndexes.get(nutrient).add(slot, slots.getValue(slot, nutrient));
+            } else {
+                valueIndexes.get(nutrient).remove(slot);
+            }
+        }
+        if (add) {
+            point[0] = slots.getPrice(slot);
+            for (int d = 1; d < point.length; d++) {
+                point[d] = slots.getValue(slot, NutrientIndex.dimensions[d]);
+            }
+            nutrientIndex.add(slot, point);
+        } else {
+            nutrientIndex.remove(slot);
+        }
+    }
+
+    /**
+     * Takes one item from the given slot and updates the slot indexes.
+     * Removes the product from the machine if its stock is finished.
+     * The check and the update are done together, so two terminals buying from
+     * the same machine at the same time cannot sell the same item twice.
+     *
+     * @param row      Row of the slot.
+     * @param col      Column of the slot.
+     * @param expected The product the buyer has seen in the slot.
+     * @return The stock left in the slot after the item is taken, -1 if the slot does not hold that product anymore.
+     */
+    public synchronized int takeFromSlot(int row, int col, Product expected) {
+        int slot = row * columnNumber + col;
+        // another purchase has emptied the slot in the meantime
+        if (slots.isEmpty(slot) || slots.getGeneration(slot) != expected.getGeneration()) {
+            return -1;
+        }
+        int stock = slots.getStock(slot);
+        if (stock == 10) {
+            fullSlots--;
+        }
+        stock--;
+        slots.setStock(slot, stock);
+        totalStock--;
+
+        if (stock == 0) {
+            String name = slots.getName(slot);
+            occupiedSlots--;
+            TreeSet<Integer> openSlots = openSlotsByName.get(name);
+            openSlots.remove(slot);
+            if (openSlots.isEmpty()) {
+                openSlotsByName.remove(name);
+            }
+            freeSlots.add(slot);
+            updateValueIndexes(slot, false);
+            slots.clear(slot);
+        } else if (stock == 9) { // the slot was full before, it can take the same product again
+            openSlotsByName.computeIfAbsent(slots.getName(slot), name -> new TreeSet<>()).add(slot);
+        }
+        return stock;
+    }
+
+    /**
+     * Puts a product to an empty slot and adds the slot to the indexes and counters.
+     */
+    private void placeProduct(int slot, ProductType type, int stock) {
+        freeSlots.remove(slot);
+        slots.place(slot, type, stock);
+        occupiedSlots++;
+        totalStock += stock;
+        if (stock == 10) {
+            fullSlots++;
+        } else {
+            openSlotsByName.computeIfAbsent(type.getName(), n -> new TreeSet<>()).add(slot);
+        }
+        updateValueIndexes(slot, true);
+    }
+
+    /**
+     * Puts a product with its stock directly to a slot, without reading a product file.
+     * Used to restore a machine from a snapshot.
+     *
+     * @param slot    The slot number, must be empty.
+     * @param name    Name of the product.
+     * @param price   Price of the product.
+     * @param protein Protein of the product.
+     * @param carb    Carb of the product.
+     * @param fat     Fat of the product.
+     * @param calorie Calorie of the product.
+     * @param stock   Stock of the product, from 1 to 10.
+     * @throws IllegalArgumentException If the slot is not an empty slot of this machine or the stock is not valid.
+     */
+    public synchronized void restoreSlot(int slot, String name, short price, float protein, float carb, float fat, float calorie, int stock) {
+        if (slot < 0 || slot >= getSlotCount() || !slots.isEmpty(slot)) {
+            throw new IllegalArgumentException("Slot " + slot + " cannot be restored.");
+        }
+        if (stock < 1 || stock > 10) {
+            throw new IllegalArgumentException("Stock of slot " + slot + " must be between 1 and 10.");
+        }
+        placeProduct(slot, catalog.intern(name, price, protein, carb, fat, calorie), stock);
     }
 
     /**
@@ -21,80 +303,253 @@ public class Machine {
      * @param output The output file to write on
      * @return 0 if successful, -1 if the machine is full.
      */
-    public short fill(String[] input, String output) {
-
-
-        for (String line : input) {
-
-            // creates a product object and sets values
-            Product product = new Product();
-            String[] parts = line.split("\t");
-            product.setName(parts[0]);
-            product.setPrice(Short.parseShort(parts[1]));
-            String[] values = parts[2].split("\\s");
-            product.setProtein(Float.parseFloat(values[0]));
-            product.setCarb(Float.parseFloat(values[1]));
-            product.setFat(Float.parseFloat(values[2]));
-            product.setCalorie(product.findCalorie());
-
-
-            boolean duplicate = false; // used to determine if the product is new or already in a slot
-
-
-            /*
-            If the product already has a slot;
-            adds it to the current slot if the stock isn't full.
-            If it is full, marks it as non-duplicate and proceeds like as is a new item.
-             */
-            for (int row = 0; row < rowNumber; row++) {
-                for (int col = 0; col < columnNumber; col++) {
-                    if (productSlots[row][col] != null && product.getName().equals(productSlots[row][col].getName())) {
-                        if (productSlots[row][col].getStock() == 10) {
-                            duplicate = false;
-                        } else {
-                            duplicate = true;
-                            productSlots[row][col].setStock(productSlots[row][col].getStock() + 1);
-                            break; // Break out of the inner loop once a duplicate is found
-                        }
-                    }
-                }
-                if (duplicate) // Break out of the outer loop once a duplicate is found
-                    break;
+    public synchronized short fill(String[] input, OutputSink output) {
+        return fill(Arrays.asList(input).iterator(), output);
+    }
+
+    /**
+     * Fills the machine with products, taking the product lines one by one.
+     * Stops reading as soon as the machine is full, so the rest of a long product file is not parsed.
+     *
+     * @param input  Iterator giving the product lines in order.
+     * @param output The output file to write on
+     * @return 0 if successful, -1 if the machine is full.
+     */
+    public synchronized short fill(Iterator<String> input, OutputSink output) {
+
+
+        LineParser parser = new LineParser(); // reused for every line
+        while (input.hasNext()) {
+            String line = input.next();
+            long start = System.nanoTime();
+            short filled = fillLine(parser, line, output);
+            recorder.latency(MetricsRecorder.fill, System.nanoTime() - start);
+            if (filled == -1) {
+                return -1;
             }
+        }
+        return 0;
 
+    }
 
-            //If it is a new item, creates a new slot
-            if (!duplicate) {
-                boolean filled = false;
-                for (int row = 0; row < rowNumber; row++) {
-                    for (int col = 0; col < columnNumber; col++) {
-                        if (productSlots[row][col] == null) {
-                            filled = true;
-                            productSlots[row][col] = product;
-                            productSlots[row][col].setStock(productSlots[row][col].getStock() + 1);
+    /**
+     * Puts the product of one line to the machine.
+     *
+     * @param parser The parser to read the line with.
+     * @param line   The product line.
+     * @param output The output file to write on
+     * @return 0 if successful, -1 if the machine is full.
+     */
+    private short fillLine(LineParser parser, String line, OutputSink output) {
+        parser.reset(line);
+
+        // a full machine cannot take any product, only the name is needed for the message
+        if (isFull()) {
+            output.write("INFO: There is no available place to put " + parser.nextText(), true);
+            output.write("INFO: The machine is full!", true);
+            return -1;
+        }
 
-                            break; // Break out of the inner loop once the product is added
-                        }
-                    }
-                    if (filled) { // break out of the outer loop
-                        break;
-                    }
-                }
+        // reads the values of the product; with a catalog file they are found only when a new slot is opened
+        String name = parser.nextText();
+        boolean valuesInFile = catalog.hasFile();
+        short price = 0;
+        float protein = 0;
+        float carb = 0;
+        float fat = 0;
+        if (!valuesInFile) {
+            price = parser.nextShort();
+            parser.nextField();
+            protein = parser.nextFloat();
+            carb = parser.nextFloat();
+            fat = parser.nextFloat();
+        }
 
 
-                if (!filled) {
-                    FileOutput.writeToFile(output, "INFO: There is no available place to put " + product.getName(), true, true);
-                    if (isFull()) {
-                        FileOutput.writeToFile(output, "INFO: The machine is full!", true, true);
-                        return -1;
-                    }
+        /*
+        If the product already has a slot that is not full, adds it to the first such slot.
+        Otherwise puts it to the first empty slot like as it is a new item.
+         */
+        boolean filled = false;
+        TreeSet<Integer> openSlots = openSlotsByName.get(name);
+        if (openSlots != null) {
+            addStock(openSlots.first(), name, 1);
+            filled = true;
+        } else if (!freeSlots.isEmpty()) { // If it is a new item, creates a new slot
+            placeProduct(freeSlots.first(), valuesInFile ? readType(parser, name) : catalog.intern(name, price, protein, carb, fat), 1);
+            filled = true;
+        }
+
+
+        if (!filled) {
+            output.write("INFO: There is no available place to put " + name, true);
+            if (isFull()) {
+                output.write("INFO: The machine is full!", true);
+                return -1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Finds the type of the product of a line, from the catalog file if it has the product,
+     * otherwise from the values of the line.
+     *
+     * @param parser The parser of the line, just after the name.
+     * @param name   Name of the product.
+     * @return The type of the product.
+     */
+    private ProductType readType(LineParser parser, String name) {
+        ProductType type = catalog.lookup(name);
+        if (type == null) {
+            short price = parser.nextShort();
+            parser.nextField();
+            float protein = parser.nextFloat();
+            float carb = parser.nextFloat();
+            float fat = parser.nextFloat();
+            type = catalog.intern(name, price, protein, carb, fat);
+        }
+        return type;
+    }
+
+    /**
+     * Adds items to a slot that already has the product, and takes the slot out of the open slots if it gets full.
+     */
+    private void addStock(int slot, String name, int amount) {
+        slots.setStock(slot, slots.getStock(slot) + amount);
+        totalStock += amount;
+        if (slots.getStock(slot) == 10) {
+            fullSlots++;
+            TreeSet<Integer> openSlots = openSlotsByName.get(name);
+            openSlots.remove(slot);
+            if (openSlots.isEmpty()) {
+                openSlotsByName.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Fills the machine like fill, but counts the lines of each product first and puts them in bulk.
+     *
+     * @param input  An array containing product information.
+     * @param output The output file to write on
+     * @return 0 if successful, -1 if the machine is full.
+     */
+    public synchronized short restock(String[] input, OutputSink output) {
+        return restock(Arrays.asList(input).iterator(), output);
+    }
+
+    /**
+     * Fills the machine like fill, but counts the lines of each product first and puts them in bulk,
+     * instead of adding the items one by one. The slots end up the same as fill would leave them.
+     *
+     * A line only opens a new slot if all the slots of its product are full at that moment, so the
+     * lines that open slots are known while counting: the first line after the free space of the
+     * product's present slots is used up, and every 10th line after it. Only those lines are read
+     * completely, the others only for their names. The new slots are given to them in their order in
+     * the input, which is the order fill would open them in.
+     *
+     * When a line would need a new slot and there is none left, the counted lines are put to the
+     * machine and the rest of the input goes through fill, which writes the info messages.
+     *
+     * @param input  Iterator giving the product lines in order.
+     * @param output The output file to write on
+     * @return 0 if successful, -1 if the machine is full.
+     */
+    public synchronized short restock(Iterator<String> input, OutputSink output) {
+        LineParser parser = new LineParser();
+        HashMap<String, RestockGroup> groups = new HashMap<>();
+        ArrayList<RestockOpening> openings = new ArrayList<>();
+        String firstLeft = null; // the first line that cannot be placed in bulk
+
+        while (input.hasNext()) {
+            String line = input.next();
+            parser.reset(line);
+            String name = parser.nextText();
+            RestockGroup group = groups.get(name);
+            if (group == null) {
+                group = new RestockGroup(name, openCapacity(name));
+                groups.put(name, group);
+            }
+            int beyondCapacity = group.count + 1 - group.capacity;
+            if (beyondCapacity > 0 && (beyondCapacity - 1) % 10 == 0) { // this line opens a new slot
+                if (openings.size() == freeSlots.size()) {
+                    firstLeft = line;
+                    break;
                 }
+                openings.add(new RestockOpening(group, readType(parser, group.name)));
             }
+            group.count++;
+        }
 
+        // first the present slots of each product are filled, the smallest slot number first
+        for (RestockGroup group : groups.values()) {
+            group.left = group.count;
+            TreeSet<Integer> openSlots = openSlotsByName.get(group.name);
+            while (group.left > 0 && openSlots != null && !openSlots.isEmpty()) {
+                int slot = openSlots.first();
+                int amount = Math.min(10 - slots.getStock(slot), group.left);
+                group.left -= amount;
+                addStock(slot, group.name, amount);
+            }
+        }
+        // then the new slots, in the order of the lines that open them
+        for (RestockOpening opening : openings) {
+            RestockGroup group = opening.group;
+            int stock = Math.min(10, group.left);
+            group.left -= stock;
+            placeProduct(freeSlots.first(), opening.type, stock);
+        }
 
+        if (firstLeft == null) {
+            return 0;
         }
-        return 0;
+        if (fillLine(parser, firstLeft, output) == -1) {
+            return -1;
+        }
+        return fill(input, output);
+    }
+
+    /**
+     * Finds how many more items of the product the slots that already have it can take.
+     */
+    private int openCapacity(String name) {
+        int capacity = 0;
+        TreeSet<Integer> openSlots = openSlotsByName.get(name);
+        if (openSlots != null) {
+            for (int slot : openSlots) {
+                capacity += 10 - slots.getStock(slot);
+            }
+        }
+        return capacity;
+    }
 
+    /**
+     * The lines of one product counted by restock.
+     */
+    private static class RestockGroup {
+        private final String name;
+        private final int capacity; // items the present slots of the product can take
+        private int count = 0; // lines counted
+        private int left; // items not put to a slot yet
+
+        private RestockGroup(String name, int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * A line that opens a new slot for its product, with the type the new slot gets.
+     */
+    private static class RestockOpening {
+        private final RestockGroup group;
+        private final ProductType type;
+
+        private RestockOpening(RestockGroup group, ProductType type) {
+            this.group = group;
+            this.type = type;
+        }
     }
 
     /**
@@ -103,32 +558,51 @@ public class Machine {
      * @param purchaseInput An array containing purchase information.
      * @param output        The output file to write on
      */
-    public void buyFromMachine(String[] purchaseInput, String output) {
-
-
-        for (String line : purchaseInput) {
+    public void buyFromMachine(String[] purchaseInput, OutputSink output) {
+        buyFromMachine(Arrays.asList(purchaseInput).iterator(), output);
+    }
 
-            // creates a purchase object and sets values
-            Purchase purchase = new Purchase();
-            FileOutput.writeToFile(output, "INPUT: " + line, true, true);
-            String[] parts = line.split("\t");
-            purchase.setType(parts[0]);
-            String[] givenMoney = parts[1].split("\\s");
-            purchase.setMoney(new short[givenMoney.length]); // creates a new money array
-            for (int i = 0; i < givenMoney.length; i++) { // adds money values to array
-                purchase.setMoneyAtIndex(i, Short.parseShort(givenMoney[i]));
+    /**
+     * Simulates buying products from the machine, taking the purchase lines one by one.
+     * Used with FileInput.readLines so that the purchase file is never held in memory as a whole.
+     *
+     * @param purchaseInput Iterator giving the purchase lines in order.
+     * @param output        The output file to write on
+     */
+    public void buyFromMachine(Iterator<String> purchaseInput, OutputSink output) {
+
+
+        // one purchase object and one parser are reused for every line
+        Purchase purchase = new Purchase(this);
+        LineParser parser = new LineParser();
+        while (purchaseInput.hasNext()) {
+            String line = purchaseInput.next();
+
+            // sets the values of the purchase
+            output.write("INPUT: " + line, true);
+            parser.reset(line);
+            purchase.setType(parser.nextText(paymentTypes));
+            purchase.clearMoney();
+            while (parser.hasNumber()) { // adds money values to array
+                purchase.addMoney(parser.nextShort());
             }
+            parser.nextField();
 
-            purchase.isValidArray(output); // checks the money array before buying
+            if (purchase.isValidArray(output) == -1) { // checks the money array before buying
+                recorder.failure(MetricsRecorder.wrongMoney);
+            }
 
             short totalValidMoney = purchase.totalValidMoney(output);
+            String choice = parser.nextText(purchaseChoices);
 
 
             //If the user wants to buy with a slot number, calls the related method.
-            if (parts[2].equals("NUMBER")) {
-                short wantedNum = Short.parseShort(parts[3]);
+            if (choice.equals("NUMBER")) {
+                int wantedNum = parser.nextInt(); // an int, since a large machine can have more slots than a short can number
 
+                long start = System.nanoTime();
                 short boughtWithNumber = purchase.buyWithNumber(wantedNum, totalValidMoney, output);
+                recorder.latency(MetricsRecorder.buyWithNumber, System.nanoTime() - start);
                 if (boughtWithNumber == 0) {
                     continue; // continue with the next purchase if there is no problem with this one
                 }
@@ -136,12 +610,13 @@ public class Machine {
             }
 
             //If the user wants to buy with one of these values, calls the related method.
-            String[] input = {"CARB", "PROTEIN", "FAT", "CALORIE"};
             short boughtWithValue = 1; // To use the return value of the method. Assigned to 1 to initiate.
-            for (String i : input) {
-                if (parts[2].equals(i)) {
-                    int wantedValue = Integer.parseInt(parts[3]);
-                    boughtWithValue = purchase.buyWithValue(wantedValue, parts, totalValidMoney, output);
+            for (String nutrient : nutrients) {
+                if (choice.equals(nutrient)) {
+                    int wantedValue = parser.nextInt();
+                    long start = System.nanoTime();
+                    boughtWithValue = purchase.buyWithValue(wantedValue, nutrient, totalValidMoney, output);
+                    recorder.latency(MetricsRecorder.buyWithValue, System.nanoTime() - start);
 
 
                 }
@@ -151,7 +626,22 @@ public class Machine {
                 continue; // continue with the next purchase if there is no problem with this one
             }
 
-            FileOutput.writeToFile(output, "RETURN: Returning your change: " + totalValidMoney + " TL", true, true);
+            //If the user wants to buy with several constraints together, calls the related method.
+            if (choice.equals("MATCH")) {
+                NutrientQuery query = NutrientQuery.parse(parser.nextText());
+                if (query == null) {
+                    output.write("INFO: Query cannot be accepted. Please try again with another query.", true);
+                } else {
+                    long start = System.nanoTime();
+                    short boughtWithQuery = purchase.buyWithQuery(query, totalValidMoney, output);
+                    recorder.latency(MetricsRecorder.buyWithQuery, System.nanoTime() - start);
+                    if (boughtWithQuery == 0) {
+                        continue;
+                    }
+                }
+            }
+
+            output.write("RETURN: Returning your change: " + totalValidMoney + " TL", true);
 
 
         }
@@ -164,39 +654,45 @@ public class Machine {
      *
      * @return True if the machine is full, otherwise false.
      */
-    public static boolean isFull() {
-        for (Product[] products : productSlots) {
-            for (Product product : products) {
-                if (product == null) {
-                    return false;
-                } else if (product.getStock() != 10) {
-                    return false;
-                }
-
-            }
-        }
-        return true;
+    public synchronized boolean isFull() {
+        return fullSlots == getSlotCount();
     }
 
     /**
      * Prints the contents of the machine.
+     * The line of a row is kept after it is printed and written again as it is if no slot of the row has changed.
      */
-    public void print(String output) {
-        FileOutput.writeToFile(output, "-----Gym Meal Machine-----", true, true);
-        for (int a = 0; a < 6; a++) {
-            for (int b = 0; b < 4; b++) {
-                if (productSlots[a][b] == null) {
-                    FileOutput.writeToFile(output, "___(0, 0)___", true, false);
-                } else {
-                    FileOutput.writeToFile(output, productSlots[a][b].getName() + "(" + (int) (productSlots[a][b].getCalorie() + 0.5) + ", " + productSlots[a][b].getStock() + ")___", true, false);
-                }
+    public synchronized void print(OutputSink output) {
+        output.write("-----Gym Meal Machine-----", true);
+        for (int a = 0; a < rowNumber; a++) {
+            if (slots.takeRowChanged(a) || renderedRows[a] == null) {
+                renderedRows[a] = renderRow(a).getBytes(OutputSink.getCharset());
+            }
+            output.write(renderedRows[a]);
 
+        }
+        output.write("----------", true);
+    }
 
+    /**
+     * Creates the line of a row for print, ending with a new line.
+     *
+     * @param row The row number.
+     * @return The line of the row.
+     */
+    private String renderRow(int row) {
+        StringBuilder line = new StringBuilder();
+        for (int b = 0; b < columnNumber; b++) {
+            int slot = row * columnNumber + b;
+            if (slots.isEmpty(slot)) {
+                line.append("___(0, 0)___");
+            } else {
+                line.append(slots.getName(slot)).append("(").append((int) (slots.getCalorie(slot) + 0.5)).append(", ").append(slots.getStock(slot)).append(")___");
             }
-            FileOutput.writeToFile(output, "\n", true, false);
+
 
         }
-        FileOutput.writeToFile(output, "----------", true, true);
+        return line.append("\n").toString();
     }
 
 
@@ -0,0 +1,144 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Saves the slots of a machine to a binary file and creates the same machine from it again,
+ * so a machine can be started without reading its product file.
+ *
+ * File format (big-endian), version 1:
+ * magic "GMMS", version (short), rows (short), columns (short),
+ * name count (int), then every name as length (unsigned short) and UTF-8 bytes,
+ * occupied slot count (int), then for every occupied slot:
+ * slot (int), name id (int), price (short), protein, carb, fat, calorie (float), stock (byte).
+ */
+public class MachineSnapshot {
+    private static final int magic = 0x474D4D53; // "GMMS"
+    private static final short version = 1;
+
+    /**
+     * Writes the slots of the machine to the file at given path.
+     *
+     * @param machine The machine to save.
+     * @param path    Path for the snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void save(Machine machine, String path) throws IOException {
+        // the names are written once, the slots refer to them by their order in the file
+        ArrayList<String> names = new ArrayList<>();
+        HashMap<String, Integer> nameIds = new HashMap<>();
+        ArrayList<Product> products = new ArrayList<>();
+        synchronized (machine) { // no purchase can change the slots while they are copied
+            for (int row = 0; row < machine.getRowNumber(); row++) {
+                for (int col = 0; col < machine.getColumnNumber(); col++) {
+                    Product product = machine.getProductSlots(row, col);
+                    if (product != null) {
+                        products.add(product);
+                        if (!nameIds.containsKey(product.getName())) {
+                            nameIds.put(product.getName(), names.size());
+                            names.add(product.getName());
+                        }
+                    }
+                }
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+                out.writeInt(magic);
+                out.writeShort(version);
+                out.writeShort(machine.getRowNumber());
+                out.writeShort(machine.getColumnNumber());
+                out.writeInt(names.size());
+                for (String name : names) {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length > 0xFFFF) {
+                        throw new IOException("Product name is too long to be saved: " + name.substring(0, 20) + "...");
+                    }
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+                out.writeInt(products.size());
+                for (Product product : products) {
+                    out.writeInt(product.getSlot());
+                    out.writeInt(nameIds.get(product.getName()));
+                    out.writeShort(product.getPrice());
+                    out.writeFloat(product.getProtein());
+                    out.writeFloat(product.getCarb());
+                    out.writeFloat(product.getFat());
+                    out.writeFloat(product.getCalorie());
+                    out.writeByte(product.getStock());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a machine from the snapshot file at given path. The file is mapped to memory
+     * and read directly, without copying it to a buffer first.
+     *
+     * @param path Path to the snapshot file.
+     * @return The restored machine.
+     * @throws IOException If the file cannot be read or it is not a valid snapshot.
+     */
+    public static Machine restore(String path) throws IOException {
+        return restore(path, new ProductCatalog());
+    }
+
+    /**
+     * Creates a machine from the snapshot file at given path, taking its product types from the given catalog.
+     *
+     * @param path    Path to the snapshot file.
+     * @param catalog The catalog of the product types, can be shared with other machines.
+     * @return The restored machine.
+     * @throws IOException If the file cannot be read or it is not a valid snapshot.
+     */
+    public static Machine restore(String path, ProductCatalog catalog) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return read(buffer, catalog);
+            } catch (RuntimeException e) { // the file ends too early or has wrong values
+                throw new IOException("\"" + path + "\" is not a valid machine snapshot.", e);
+            }
+        }
+    }
+
+    private static Machine read(ByteBuffer buffer, ProductCatalog catalog) throws IOException {
+        if (buffer.getInt() != magic) {
+            throw new IOException("This file is not a machine snapshot.");
+        }
+        short fileVersion = buffer.getShort();
+        if (fileVersion != version) {
+            throw new IOException("Snapshot version " + fileVersion + " is not supported.");
+        }
+        Machine machine = new Machine(buffer.getShort(), buffer.getShort(), catalog);
+
+        String[] names = new String[buffer.getInt()];
+        for (int i = 0; i < names.length; i++) {
+            byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int slotCount = buffer.getInt();
+        for (int i = 0; i < slotCount; i++) {
+            int slot = buffer.getInt();
+            String name = names[buffer.getInt()];
+            short price = buffer.getShort();
+            float protein = buffer.getFloat();
+            float carb = buffer.getFloat();
+            float fat = buffer.getFloat();
+            float calorie = buffer.getFloat();
+            int stock = buffer.get();
+            machine.restoreSlot(slot, name, price, protein, carb, fat, calorie, stock);
+        }
+        return machine;
+    }
+}
@@ -1,13 +1,85 @@
+import java.io.IOException;
+
 public class Main {
+    /**
+     * Sample usage: java Main Product.txt Purchase.txt Output.txt [Metrics.txt [catalog.gmmc]]
+     * If a fourth path is given, a summary of the sales, failed purchases and operation times is written to it at the end
+     * ("-" to not write it). If a fifth path is given, the values of the products are taken from that catalog file
+     * (see CatalogFile) instead of the product file.
+     */
     public static void main(String[] args){
-        FileOutput.writeToFile(args[2],"",false,false); // to clean the file before writing
-        String[] productInput = FileInput.readFile(args[0], true, true);
-        String[] purchaseInput = FileInput.readFile(args[1], true, true);
-        String output = args[2];
-        Machine gymMealMachine = new Machine();
-        gymMealMachine.fill(productInput, output);
-        gymMealMachine.print(output);
-        gymMealMachine.buyFromMachine(purchaseInput, output);
-        gymMealMachine.print(output);
+        ProductCatalog catalog = new ProductCatalog();
+        if (args.length > 4) {
+            try {
+                catalog = new ProductCatalog(CatalogFile.open(args[4]));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+        run(args[0], args[1], args[2], catalog, args.length > 3 && !args[3].equals("-") ? args[3] : null);
+    }
+
+    /**
+     * Runs one Gym Meal Machine from start to end.
+     *
+     * @param productPath  Path to the product file.
+     * @param purchasePath Path to the purchase file.
+     * @param output       Path to the output file.
+     */
+    public static void run(String productPath, String purchasePath, String output) {
+        run(productPath, purchasePath, output, new ProductCatalog());
+    }
+
+    /**
+     * Runs one Gym Meal Machine from start to end, taking its product types from the given catalog.
+     *
+     * @param productPath  Path to the product file.
+     * @param purchasePath Path to the purchase file.
+     * @param output       Path to the output file.
+     * @param catalog      The catalog of the product types, can be shared with other machines.
+     */
+    public static void run(String productPath, String purchasePath, String output, ProductCatalog catalog) {
+        run(productPath, purchasePath, output, catalog, null);
+    }
+
+    /**
+     * Runs one Gym Meal Machine from start to end and writes the summary of its metrics.
+     *
+     * @param productPath  Path to the product file.
+     * @param purchasePath Path to the purchase file.
+     * @param output       Path to the output file.
+     * @param catalog      The catalog of the product types, can be shared with other machines.
+     * @param metricsPath  Path to the file the metrics summary is written to, null to not record metrics.
+     */
+    public static void run(String productPath, String purchasePath, String output, ProductCatalog catalog, String metricsPath) {
+        Machine gymMealMachine = new Machine((short) 6, (short) 4, catalog);
+        SalesMetrics metrics = null;
+        if (metricsPath != null) {
+            metrics = new SalesMetrics(gymMealMachine.getSlotCount());
+            gymMealMachine.setRecorder(metrics);
+        }
+        // the output file is opened once (from zero) and everything is written through it
+        try (OutputSink outputSink = new OutputSink(output, false)) {
+            // the product file is read line by line too, the lines after the machine gets full are never read
+            try (FileInput.LineIterator productInput = FileInput.readLines(productPath, true, true)) {
+                gymMealMachine.fill(productInput, outputSink);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            gymMealMachine.print(outputSink);
+            // purchase files can be very long, so they are read line by line while buying
+            try (FileInput.LineIterator purchaseInput = FileInput.readLines(purchasePath, true, true)) {
+                gymMealMachine.buyFromMachine(purchaseInput, outputSink);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            gymMealMachine.print(outputSink);
+        }
+        if (metrics != null) {
+            try (OutputSink metricsSink = new OutputSink(metricsPath, false)) {
+                metrics.writeSummary(metricsSink);
+            }
+        }
     }
 }
@@ -0,0 +1,61 @@
+/**
+ * Receives what the machine does while it runs: the completed sales, the purchases that fail with an INFO message,
+ * and how long the main operations take. A machine gives everything to its recorder, which is NONE unless another one is set.
+ * The methods can be called from many threads at the same time, so an implementation must be thread-safe.
+ */
+public interface MetricsRecorder {
+    // kinds of failed purchases
+    int insufficientMoney = 0;
+    int productNotFound = 1;
+    int wrongMoney = 2;
+    int emptySlot = 3;
+    int noChange = 4;
+    String[] failureNames = {"insufficient money", "product not found", "wrong money", "empty slot", "no change"};
+
+    // measured operations
+    int buyWithNumber = 0;
+    int buyWithValue = 1;
+    int buyWithQuery = 2;
+    int fill = 3;
+    String[] operationNames = {"buyWithNumber", "buyWithValue", "buyWithQuery", "fill"};
+
+    /**
+     * A recorder that ignores everything.
+     */
+    MetricsRecorder NONE = new MetricsRecorder() {
+        @Override
+        public void sale(int slot, short price) {
+        }
+
+        @Override
+        public void failure(int kind) {
+        }
+
+        @Override
+        public void latency(int operation, long nanos) {
+        }
+    };
+
+    /**
+     * Called when an item is sold.
+     *
+     * @param slot  The slot the item is bought from.
+     * @param price Price paid for the item.
+     */
+    void sale(int slot, short price);
+
+    /**
+     * Called when a purchase fails.
+     *
+     * @param kind One of insufficientMoney, productNotFound, wrongMoney, emptySlot and noChange.
+     */
+    void failure(int kind);
+
+    /**
+     * Called when an operation ends. fill is measured for every product line, the others for every purchase.
+     *
+     * @param operation One of buyWithNumber, buyWithValue, buyWithQuery and fill.
+     * @param nanos     Time the operation took in nanoseconds.
+     */
+    void latency(int operation, long nanos);
+}
@@ -0,0 +1,409 @@
+import java.util.Arrays;
+
+/**
+ * A k-d tree of the occupied slots of a machine, over the price and the four nutrients of their products.
+ * Used to find the slot matching several constraints at once (see NutrientQuery), without looking at every slot.
+ *
+ * Every node keeps the box holding all the points below it, and the search only uses these boxes,
+ * so a node can be put on either side of a node with the same value. The tree is kept balanced
+ * while slots are added (a subtree that gets too deep is built again), and an emptied slot is only
+ * marked; the tree is built again without them when they become more than the slots in use.
+ */
+public class NutrientIndex {
+    // the dimensions of the points, in this order
+    public static final String[] dimensions = {"PRICE", "CARB", "PROTEIN", "FAT", "CALORIE"};
+    private static final int k = 5;
+    private static final double balance = 0.7; // a subtree is rebuilt when a child holds more than this share of it
+
+    private float[] points; // node * k + dimension
+    private float[] low; // lower corner of the box of the subtree, node * k + dimension
+    private float[] high; // upper corner of the box of the subtree
+    private int[] left;
+    private int[] right;
+    private int[] size; // nodes in the subtree, including the emptied ones
+    private int[] slotOf;
+    private boolean[] inUse; // false after the slot of the node is emptied
+
+    private final int[] nodeOfSlot; // -1 if the slot is not in the tree
+    private int root = -1;
+    private int nodeCount = 0; // nodes ever created, ids of the dropped ones are reused from freeNodes
+    private int[] freeNodes = new int[16];
+    private int freeCount = 0;
+    private int slotsInUse = 0;
+
+    private int[] path = new int[64]; // nodes from the root to the place of a new node
+    private int[] stack = new int[64]; // nodes left to visit while searching
+
+    /**
+     * Creates an empty index.
+     *
+     * @param slotCount Number of slots of the machine.
+     */
+    public NutrientIndex(int slotCount) {
+        nodeOfSlot = new int[slotCount];
+        Arrays.fill(nodeOfSlot, -1);
+        allocate(16);
+    }
+
+    /**
+     * Adds a slot with the given values.
+     *
+     * @param slot  The slot number, must not be in the index.
+     * @param point The values of the slot, in the order of dimensions. Copied into the index.
+     */
+    public void add(int slot, float[] point) {
+        int node = newNode(slot, point);
+        nodeOfSlot[slot] = node;
+        slotsInUse++;
+        if (root == -1) {
+            root = node;
+            return;
+        }
+
+        int depth = 0;
+        int current = root;
+        while (true) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth] = current;
+            size[current]++;
+            extend(current, node);
+            int d = depth % k;
+            float split = points[current * k + d];
+            // equal values go to the smaller side, so many slots with the same product do not make a long chain
+            boolean goLeft = point[d] < split || (point[d] == split && sizeOf(left[current]) < sizeOf(right[current]));
+            int child = goLeft ? left[current] : right[current];
+            depth++;
+            if (child == -1) {
+                if (goLeft) {
+                    left[current] = node;
+                } else {
+                    right[current] = node;
+                }
+                break;
+            }
+            current = child;
+        }
+
+        // the new node is too deep, so the deepest ancestor whose one side is too large is built again
+        if (depth > Math.log(size[root]) / Math.log(1 / balance)) {
+            int child = node;
+            for (int i = depth - 1; i >= 0; i--) {
+                int ancestor = path[i];
+                if (size[child] > balance * size[ancestor]) {
+                    int dropped = size[ancestor];
+                    int rebuilt = rebuild(ancestor, i);
+                    dropped -= sizeOf(rebuilt);
+                    for (int j = 0; j < i; j++) {
+                        size[path[j]] -= dropped;
+                    }
+                    replaceChild(i == 0 ? -1 : path[i - 1], ancestor, rebuilt);
+                    break;
+                }
+                child = ancestor;
+            }
+        }
+    }
+
+    /**
+     * Removes an emptied slot from the index.
+     *
+     * @param slot The slot number.
+     */
+    public void remove(int slot) {
+        int node = nodeOfSlot[slot];
+        if (node == -1) {
+            return;
+        }
+        nodeOfSlot[slot] = -1;
+        inUse[node] = false;
+        slotsInUse--;
+        if (size[root] - slotsInUse > slotsInUse) {
+            root = rebuild(root, 0);
+        }
+    }
+
+    public int size() {
+        return slotsInUse;
+    }
+
+    /**
+     * Finds the slot matching all the bounds of the query with a price not more than the budget.
+     * If the query has targets, the slot closest to them is chosen, otherwise the cheapest one.
+     * Ties are broken by the lower price and then by the smaller slot number.
+     *
+     * @param query  The bounds and targets.
+     * @param budget The highest price that can be paid.
+     * @return The slot number, -1 if no slot matches.
+     */
+    public int find(NutrientQuery query, float budget) {
+        float[] min = query.getMin();
+        float[] max = query.getMax();
+        float[] target = query.getTarget();
+        boolean closest = query.hasTarget();
+        float maxPrice = Math.min(max[0], budget);
+
+        int best = -1;
+        float bestScore = Float.POSITIVE_INFINITY;
+        int top = 0;
+        if (root != -1) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            if (!overlaps(node, min, max, maxPrice) || bound(node, target, closest) > bestScore) {
+                continue;
+            }
+            if (inUse[node] && contains(node, min, max, maxPrice)) {
+                float score = closest ? distance(node, target) : points[node * k];
+                if (best == -1 || score < bestScore || (score == bestScore && better(node, best))) {
+                    best = node;
+                    bestScore = score;
+                }
+            }
+            // the child that can hold a better slot is pushed last, so it is visited first
+            int first = left[node];
+            int second = right[node];
+            if (first != -1 && second != -1 && bound(second, target, closest) < bound(first, target, closest)) {
+                first = right[node];
+                second = left[node];
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (second != -1) {
+                stack[top++] = second;
+            }
+            if (first != -1) {
+                stack[top++] = first;
+            }
+        }
+        return best == -1 ? -1 : slotOf[best];
+    }
+
+    private boolean better(int node, int best) {
+        float price = points[node * k];
+        float bestPrice = points[best * k];
+        return price < bestPrice || (price == bestPrice && slotOf[node] < slotOf[best]);
+    }
+
+    private boolean overlaps(int node, float[] min, float[] max, float maxPrice) {
+        int base = node * k;
+        if (low[base] > maxPrice) {
+            return false;
+        }
+        for (int d = 0; d < k; d++) {
+            if (high[base + d] < min[d] || low[base + d] > max[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(int node, float[] min, float[] max, float maxPrice) {
+        int base = node * k;
+        if (points[base] > maxPrice) {
+            return false;
+        }
+        for (int d = 0; d < k; d++) {
+            float value = points[base + d];
+            if (value < min[d] || value > max[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The smallest score a slot in the subtree can have.
+     */
+    private float bound(int node, float[] target, boolean closest) {
+        int base = node * k;
+        if (!closest) {
+            return low[base];
+        }
+        float sum = 0;
+        for (int d = 0; d < k; d++) {
+            if (!Float.isNaN(target[d])) {
+                float gap = Math.max(0, Math.max(low[base + d] - target[d], target[d] - high[base + d]));
+                sum += gap * gap;
+            }
+        }
+        return sum;
+    }
+
+    private float distance(int node, float[] target) {
+        int base = node * k;
+        float sum = 0;
+        for (int d = 0; d < k; d++) {
+            if (!Float.isNaN(target[d])) {
+                float gap = points[base + d] - target[d];
+                sum += gap * gap;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Builds the subtree again as a balanced tree, leaving out the nodes of emptied slots.
+     *
+     * @param node  Root of the subtree.
+     * @param depth Depth of the root, which gives the dimension it is split on.
+     * @return The new root of the subtree, -1 if no slot in it is in use.
+     */
+    private int rebuild(int node, int depth) {
+        int[] nodes = new int[size[node]];
+        int count = 0;
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            if (inUse[current]) {
+                nodes[count++] = current;
+            } else {
+                freeNode(current);
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (left[current] != -1) {
+                stack[top++] = left[current];
+            }
+            if (right[current] != -1) {
+                stack[top++] = right[current];
+            }
+        }
+        return build(nodes, 0, count, depth);
+    }
+
+    private int build(int[] nodes, int from, int to, int depth) {
+        if (from >= to) {
+            return -1;
+        }
+        int middle = (from + to) >>> 1;
+        select(nodes, from, to - 1, middle, depth % k);
+        int node = nodes[middle];
+        left[node] = build(nodes, from, middle, depth + 1);
+        right[node] = build(nodes, middle + 1, to, depth + 1);
+        size[node] = to - from;
+        System.arraycopy(points, node * k, low, node * k, k);
+        System.arraycopy(points, node * k, high, node * k, k);
+        if (left[node] != -1) {
+            extend(node, left[node]);
+        }
+        if (right[node] != -1) {
+            extend(node, right[node]);
+        }
+        return node;
+    }
+
+    /**
+     * Moves the node with the wanted rank in the given dimension to its place, smaller ones before it and larger ones after it.
+     */
+    private void select(int[] nodes, int from, int to, int wanted, int d) {
+        while (from < to) {
+            float pivot = points[nodes[(from + to) >>> 1] * k + d];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (points[nodes[i] * k + d] < pivot) {
+                    i++;
+                }
+                while (points[nodes[j] * k + d] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (wanted <= j) {
+                to = j;
+            } else if (wanted >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Grows the box of the node to hold the box of the other node.
+     */
+    private void extend(int node, int other) {
+        int base = node * k;
+        int otherBase = other * k;
+        for (int d = 0; d < k; d++) {
+            low[base + d] = Math.min(low[base + d], low[otherBase + d]);
+            high[base + d] = Math.max(high[base + d], high[otherBase + d]);
+        }
+    }
+
+    private void replaceChild(int parent, int oldChild, int newChild) {
+        if (parent == -1) {
+            root = newChild;
+        } else if (left[parent] == oldChild) {
+            left[parent] = newChild;
+        } else {
+            right[parent] = newChild;
+        }
+    }
+
+    private int sizeOf(int node) {
+        return node == -1 ? 0 : size[node];
+    }
+
+    private int newNode(int slot, float[] point) {
+        int node;
+        if (freeCount > 0) {
+            node = freeNodes[--freeCount];
+        } else {
+            if (nodeCount == slotOf.length) {
+                allocate(nodeCount * 2);
+            }
+            node = nodeCount++;
+        }
+        System.arraycopy(point, 0, points, node * k, k);
+        System.arraycopy(point, 0, low, node * k, k);
+        System.arraycopy(point, 0, high, node * k, k);
+        left[node] = -1;
+        right[node] = -1;
+        size[node] = 1;
+        slotOf[node] = slot;
+        inUse[node] = true;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        if (freeCount == freeNodes.length) {
+            freeNodes = Arrays.copyOf(freeNodes, freeCount * 2);
+        }
+        freeNodes[freeCount++] = node;
+    }
+
+    private void allocate(int capacity) {
+        if (points == null) {
+            points = new float[capacity * k];
+            low = new float[capacity * k];
+            high = new float[capacity * k];
+            left = new int[capacity];
+            right = new int[capacity];
+            size = new int[capacity];
+            slotOf = new int[capacity];
+            inUse = new boolean[capacity];
+        } else {
+            points = Arrays.copyOf(points, capacity * k);
+            low = Arrays.copyOf(low, capacity * k);
+            high = Arrays.copyOf(high, capacity * k);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            size = Arrays.copyOf(size, capacity);
+            slotOf = Arrays.copyOf(slotOf, capacity);
+            inUse = Arrays.copyOf(inUse, capacity);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+
+/**
+ * The constraints of a MATCH purchase, such as "PROTEIN>=30 and CALORIE<=400 and PRICE<=25".
+ * Every term is a name from NutrientIndex.dimensions, an operator and a number, and the terms may be
+ * separated with "and" or spaces. The operators are:
+ * >= and <= for a bound, = for an exact value, and ~ for a target the product should be as close as possible to.
+ * The price is always bounded by the money given too.
+ */
+public class NutrientQuery {
+    private final float[] min = new float[NutrientIndex.dimensions.length];
+    private final float[] max = new float[NutrientIndex.dimensions.length];
+    private final float[] target = new float[NutrientIndex.dimensions.length]; // NaN if there is no target for the dimension
+    private boolean hasTarget = false;
+
+    public NutrientQuery() {
+        Arrays.fill(min, Float.NEGATIVE_INFINITY);
+        Arrays.fill(max, Float.POSITIVE_INFINITY);
+        Arrays.fill(target, Float.NaN);
+    }
+
+    /**
+     * Reads a query from its text.
+     *
+     * @param text The terms of the query.
+     * @return The query, null if the text is not a valid query.
+     */
+    public static NutrientQuery parse(String text) {
+        NutrientQuery query = new NutrientQuery();
+        int position = 0;
+        int terms = 0;
+        while (true) {
+            position = skipSpaces(text, position);
+            if (position == text.length()) {
+                break;
+            }
+            int nameEnd = position;
+            while (nameEnd < text.length() && Character.isLetter(text.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            if (nameEnd - position == 3 && text.regionMatches(true, position, "AND", 0, 3) && terms > 0) {
+                position = nameEnd;
+                continue;
+            }
+            int dimension = -1;
+            for (int d = 0; d < NutrientIndex.dimensions.length; d++) {
+                String name = NutrientIndex.dimensions[d];
+                if (name.length() == nameEnd - position && text.regionMatches(true, position, name, 0, name.length())) {
+                    dimension = d;
+                }
+            }
+            if (dimension == -1) {
+                return null;
+            }
+
+            position = skipSpaces(text, nameEnd);
+            String operator = null;
+            for (String candidate : new String[]{">=", "<=", "=", "~"}) {
+                if (text.startsWith(candidate, position)) {
+                    operator = candidate;
+                    break;
+                }
+            }
+            if (operator == null) {
+                return null;
+            }
+            position = skipSpaces(text, position + operator.length());
+            int numberEnd = position;
+            while (numberEnd < text.length() && (Character.isDigit(text.charAt(numberEnd)) || text.charAt(numberEnd) == '.'
+                    || (numberEnd == position && text.charAt(numberEnd) == '-'))) {
+                numberEnd++;
+            }
+            float value;
+            try {
+                value = Float.parseFloat(text.substring(position, numberEnd));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            position = numberEnd;
+
+            if (operator.equals(">=")) {
+                query.min[dimension] = Math.max(query.min[dimension], value);
+            } else if (operator.equals("<=")) {
+                query.max[dimension] = Math.min(query.max[dimension], value);
+            } else if (operator.equals("=")) {
+                query.min[dimension] = Math.max(query.min[dimension], value);
+                query.max[dimension] = Math.min(query.max[dimension], value);
+            } else {
+                query.target[dimension] = value;
+                query.hasTarget = true;
+            }
+            terms++;
+        }
+        return terms == 0 ? null : query;
+    }
+
+    private static int skipSpaces(String text, int position) {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    //getters
+
+    public float[] getMin() {
+        return min;
+    }
+
+    public float[] getMax() {
+        return max;
+    }
+
+    public float[] getTarget() {
+        return target;
+    }
+
+    public boolean hasTarget() {
+        return hasTarget;
+    }
+}
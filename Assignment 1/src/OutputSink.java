@@ -0,0 +1,98 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+
+/**
+ * An output file that is opened once and written many times.
+ * The content is kept in a buffer and written to the file when the buffer is full,
+ * on flush() and on close(), so the file is not opened again for every message.
+ */
+public class OutputSink implements Closeable {
+    private static final int bufferSize = 64 * 1024;
+    private static final Charset charset = Charset.defaultCharset(); // the same charset FileOutput.writeToFile writes with
+
+    private PrintStream ps; // null if the file could not be opened
+
+    /**
+     * Opens the file at given path.
+     *
+     * @param path   Path for the file content is going to be written.
+     * @param append Append status, true if wanted to append to file if it exists, false if wanted to create file from zero.
+     */
+    public OutputSink(String path, boolean append) {
+        try {
+            ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(path, append), bufferSize), false, charset.name());
+        } catch (FileNotFoundException e) { // the messages are lost like FileOutput.writeToFile does
+            e.printStackTrace();
+        } catch (UnsupportedEncodingException e) { // cannot happen, the default charset is always supported
+            e.printStackTrace();
+        }
+    }
+
+    private OutputSink() {
+    }
+
+    /**
+     * Creates a sink that throws away everything written to it, for runs whose text output is not needed.
+     *
+     * @return The new sink.
+     */
+    public static OutputSink discard() {
+        return new OutputSink();
+    }
+
+    /**
+     * Writes given content to the file.
+     *
+     * @param content Content that is going to be written to file.
+     * @param newLine True if wanted to append a new line after content, false if vice versa.
+     */
+    public void write(String content, boolean newLine) {
+        if (ps != null) {
+            ps.print(content);
+            if (newLine) {
+                ps.print('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes content that is already turned into bytes with getCharset(), so it is not encoded again.
+     *
+     * @param bytes Content that is going to be written to file.
+     */
+    public void write(byte[] bytes) {
+        if (ps != null) {
+            ps.write(bytes, 0, bytes.length);
+        }
+    }
+
+    public static Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Writes the buffered content to the file.
+     */
+    public void flush() {
+        if (ps != null) {
+            ps.flush();
+        }
+    }
+
+    /**
+     * Flushes all the content and closes the file.
+     */
+    @Override
+    public void close() {
+        if (ps != null) {
+            ps.flush();
+            ps.close();
+            ps = null;
+        }
+    }
+}
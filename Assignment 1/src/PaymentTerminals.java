@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several payment terminals that buy from the same machine at the same time.
+ * Every terminal has its own purchase file and writes its own output file.
+ */
+public class PaymentTerminals {
+    /**
+     * Sample usage: java PaymentTerminals Product.txt GMMOutput.txt Purchase_A.txt Output_A.txt Purchase_B.txt Output_B.txt
+     * The machine output file gets the machine before and after the purchases.
+     *
+     * @param args Product file, machine output file and then (purchase file, terminal output file) pairs.
+     */
+    public static void main(String[] args) {
+        if (args.length < 4 || args.length % 2 != 0) {
+            System.out.println("ERROR: Give the product file, the machine output file and (purchase, output) pairs for the terminals.");
+            return;
+        }
+        OutputSink output = new OutputSink(args[1], false);
+        Machine gymMealMachine = new Machine();
+        gymMealMachine.fill(FileInput.readFile(args[0], true, true), output);
+        gymMealMachine.print(output);
+
+        String[][] purchaseInputs = new String[(args.length - 2) / 2][];
+        OutputSink[] outputs = new OutputSink[purchaseInputs.length];
+        for (int i = 0; i < purchaseInputs.length; i++) {
+            purchaseInputs[i] = FileInput.readFile(args[2 + 2 * i], true, true);
+            outputs[i] = new OutputSink(args[3 + 2 * i], false);
+        }
+        run(gymMealMachine, purchaseInputs, outputs);
+        for (OutputSink terminalOutput : outputs) {
+            terminalOutput.close();
+        }
+        gymMealMachine.print(output);
+        output.close();
+    }
+
+    /**
+     * Feeds every purchase input to the machine from its own thread and waits for all of them.
+     *
+     * @param machine        The machine all terminals buy from.
+     * @param purchaseInputs Purchase lines of each terminal.
+     * @param outputs        Output file of each terminal.
+     */
+    public static void run(Machine machine, String[][] purchaseInputs, OutputSink[] outputs) {
+        ExecutorService executor = Executors.newFixedThreadPool(purchaseInputs.length);
+        ArrayList<Future<?>> terminals = new ArrayList<>();
+        for (int i = 0; i < purchaseInputs.length; i++) {
+            String[] purchaseInput = purchaseInputs[i];
+            OutputSink output = outputs[i];
+            terminals.add(executor.submit(() -> machine.buyFromMachine(purchaseInput, output)));
+        }
+        try {
+            for (Future<?> terminal : terminals) {
+                try {
+                    terminal.get();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Replays a purchase file against many versions of the machine, each with its own size and prices,
+ * to see which one earns the most. Every version (scenario) is run on its own copy of the machine,
+ * in parallel on a fork-join pool, and only its revenue and stock-outs are reported; no output text is written.
+ *
+ * The product file puts the products to the same slots whatever their prices are, so the machine is filled
+ * once for every size, and every scenario starts from a copy of it with its own prices.
+ * The purchase file is read once and shared by all the scenarios; every scenario makes the purchases with
+ * Machine.buyFromMachine, so the results follow the same rules as a real run.
+ */
+public class PricingSimulator {
+
+    /**
+     * Sample usage: java PricingSimulator Product.txt Purchase.txt Scenarios.txt
+     * Every line of the scenario file is a scenario: its name, the rows and columns of the machine,
+     * and optionally the new prices, such as
+     * "cheap water	6 4	Water=2,Cookie=4"
+     *
+     * @param args Product file, purchase file and scenario file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("ERROR: Give the product file, the purchase file and the scenario file.");
+            return;
+        }
+        String[] productLines = FileInput.readFile(args[0], true, true);
+        String[] purchaseLines = FileInput.readFile(args[1], true, true);
+        String[] scenarioLines = FileInput.readFile(args[2], true, true);
+        if (productLines == null || purchaseLines == null || scenarioLines == null) {
+            return;
+        }
+        Scenario[] scenarios = new Scenario[scenarioLines.length];
+        for (int i = 0; i < scenarios.length; i++) {
+            scenarios[i] = Scenario.parse(scenarioLines[i]);
+            if (scenarios[i] == null) {
+                System.out.println("ERROR: Scenario cannot be read: " + scenarioLines[i]);
+                return;
+            }
+        }
+
+        Result[] results = run(productLines, purchaseLines, scenarios);
+        System.out.printf("%-20s %9s %10s %8s %11s %8s%n", "scenario", "size", "revenue", "sold", "stock-outs", "failed");
+        for (int i = 0; i < scenarios.length; i++) {
+            Scenario scenario = scenarios[i];
+            Result result = results[i];
+            System.out.printf("%-20s %9s %10d %8d %11d %8d%n", scenario.name, scenario.rows + "x" + scenario.columns,
+                    result.revenue, result.sold, result.stockOuts, result.failed);
+        }
+    }
+
+    /**
+     * Runs all the scenarios in parallel.
+     *
+     * @param productLines  The lines of the product file.
+     * @param purchaseLines The lines of the purchase file.
+     * @param scenarios     The scenarios.
+     * @return The result of every scenario, in the same order.
+     */
+    public static Result[] run(String[] productLines, String[] purchaseLines, Scenario[] scenarios) {
+        // one filled machine for every size, the scenarios only read them
+        ProductCatalog catalog = new ProductCatalog();
+        HashMap<String, Machine> filledMachines = new HashMap<>();
+        for (Scenario scenario : scenarios) {
+            String size = scenario.rows + "x" + scenario.columns;
+            if (!filledMachines.containsKey(size)) {
+                Machine machine = new Machine(scenario.rows, scenario.columns, catalog);
+                machine.fill(productLines, OutputSink.discard());
+                filledMachines.put(size, machine);
+            }
+        }
+
+        Result[] results = new Result[scenarios.length];
+        ForkJoinPool.commonPool().invoke(new ScenarioTask(scenarios, filledMachines, purchaseLines, results, 0, scenarios.length));
+        return results;
+    }
+
+    /**
+     * Copies the filled machine with the prices of the scenario and makes all the purchases on the copy.
+     */
+    private static Result simulate(Scenario scenario, Machine filled, String[] purchaseLines) {
+        Machine machine = new Machine(filled.getRowNumber(), filled.getColumnNumber(), filled.getCatalog());
+        for (int slot = 0; slot < filled.getSlotCount(); slot++) {
+            Product product = filled.getProductSlots(slot / filled.getColumnNumber(), slot % filled.getColumnNumber());
+            if (product != null) {
+                Short price = scenario.prices.get(product.getName());
+                machine.restoreSlot(slot, product.getName(), price == null ? product.getPrice() : price,
+                        product.getProtein(), product.getCarb(), product.getFat(), product.getCalorie(), product.getStock());
+            }
+        }
+        SalesMetrics metrics = new SalesMetrics(machine.getSlotCount());
+        machine.setRecorder(metrics);
+        int occupiedBefore = machine.getOccupiedSlots();
+
+        machine.buyFromMachine(purchaseLines, OutputSink.discard());
+
+        Result result = new Result();
+        for (int slot = 0; slot < machine.getSlotCount(); slot++) {
+            result.sold += metrics.getSales(slot);
+            result.revenue += metrics.getRevenue(slot);
+        }
+        for (int kind = 0; kind < MetricsRecorder.failureNames.length; kind++) {
+            result.failed += metrics.getFailures(kind);
+        }
+        // nothing is put into the machine while buying, so every slot emptied is a product sold out
+        result.stockOuts = occupiedBefore - machine.getOccupiedSlots();
+        return result;
+    }
+
+    /**
+     * Runs a range of the scenarios, splitting it in two until one scenario is left.
+     */
+    private static class ScenarioTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Scenario[] scenarios;
+        private final HashMap<String, Machine> filledMachines;
+        private final String[] purchaseLines;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        private ScenarioTask(Scenario[] scenarios, HashMap<String, Machine> filledMachines, String[] purchaseLines,
+                             Result[] results, int from, int to) {
+            this.scenarios = scenarios;
+            this.filledMachines = filledMachines;
+            this.purchaseLines = purchaseLines;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Scenario scenario = scenarios[from];
+                results[from] = simulate(scenario, filledMachines.get(scenario.rows + "x" + scenario.columns), purchaseLines);
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScenarioTask(scenarios, filledMachines, purchaseLines, results, from, middle),
+                        new ScenarioTask(scenarios, filledMachines, purchaseLines, results, middle, to));
+            }
+        }
+    }
+
+    /**
+     * A size and a price list to try.
+     */
+    public static class Scenario {
+        private final String name;
+        private final short rows;
+        private final short columns;
+        private final HashMap<String, Short> prices; // new prices by product name, the other products keep their prices
+
+        public Scenario(String name, short rows, short columns, HashMap<String, Short> prices) {
+            this.name = name;
+            this.rows = rows;
+            this.columns = columns;
+            this.prices = prices;
+        }
+
+        /**
+         * Reads a line of the scenario file: name, "rows columns" and optionally "Product=price,Product=price", separated by tabs.
+         *
+         * @param line The line.
+         * @return The scenario, null if the line is not valid.
+         */
+        public static Scenario parse(String line) {
+            try {
+                LineParser parser = new LineParser();
+                parser.reset(line);
+                String name = parser.nextText();
+                short rows = parser.nextShort();
+                short columns = parser.nextShort();
+                if (rows <= 0 || columns <= 0) {
+                    return null;
+                }
+                parser.nextField();
+                HashMap<String, Short> prices = new HashMap<>();
+                String priceList = parser.nextText().trim();
+                if (!priceList.isEmpty()) {
+                    for (String entry : priceList.split(",")) {
+                        int equals = entry.lastIndexOf('=');
+                        if (equals == -1) {
+                            return null;
+                        }
+                        prices.put(entry.substring(0, equals).trim(), Short.parseShort(entry.substring(equals + 1).trim()));
+                    }
+                }
+                return new Scenario(name, rows, columns, prices);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * What a scenario ends with.
+     */
+    public static class Result {
+        private long revenue = 0; // money taken for the items sold
+        private long sold = 0; // items sold
+        private int stockOuts = 0; // slots emptied by the purchases
+        private long failed = 0; // INFO messages of failed purchases and wrong money, counted like the metrics of the machine
+
+        public long getRevenue() {
+            return revenue;
+        }
+
+        public long getSold() {
+            return sold;
+        }
+
+        public int getStockOuts() {
+            return stockOuts;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+    }
+}
@@ -1,89 +1,87 @@
 /**
  * Class representing a product in the machine.
+ * The values are not kept here; a product is a view of one slot of the machine's SlotStore.
+ * The view is read-only: slots are only changed through the Machine, which keeps its indexes up to date.
  */
 public class Product {
 
-    /*
-    Attributes for Product.
-    Used float and short in general for the sake of memory usage.
-    Used int for stock to make sure that there is no problem with the increments and decrements.
-     */
-    private String name;
-    private short price;
-    private float protein;
-    private float carb;
-    private float fat;
-    private float calorie;
-    private int stock;
-
-    //getters and setters
+    private final SlotStore store;
+    private final int slot;
+    private final int generation; // the generation of the slot when this view is created
 
-    public String getName() {
-        return name;
+    public Product(SlotStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+        this.generation = store.getGeneration(slot);
     }
 
-    public void setName(String name) {
-        this.name = name;
-    }
+    //getters
 
-    public short getPrice() {
-        return price;
+    public int getSlot() {
+        return slot;
     }
 
-    public void setPrice(short price) {
-        this.price = price;
+    public int getGeneration() {
+        return generation;
     }
 
-    public float getProtein() {
-        return protein;
+    /**
+     * Returns the shared type of the product, holding its name, price and nutrition.
+     */
+    public ProductType getType() {
+        return store.getType(slot);
     }
 
-    public void setProtein(float protein) {
-        this.protein = protein;
+    public String getName() {
+        return store.getName(slot);
     }
 
-    public float getCarb() {
-        return carb;
+    public short getPrice() {
+        return store.getPrice(slot);
     }
 
-    public void setCarb(float carb) {
-        this.carb = carb;
+    public float getProtein() {
+        return store.getProtein(slot);
     }
 
-    public float getFat() {
-        return fat;
+    public float getCarb() {
+        return store.getCarb(slot);
     }
 
-    public void setFat(float fat) {
-        this.fat = fat;
+    public float getFat() {
+        return store.getFat(slot);
     }
 
     public float getCalorie() {
-        return calorie;
-    }
-
-    public void setCalorie(float calorie) {
-        this.calorie = calorie;
+        return store.getCalorie(slot);
     }
 
     public int getStock() {
-        return stock;
-    }
-
-    public void setStock(int stock) {
-        this.stock = stock;
+        return store.getStock(slot);
     }
 
     /**
      * Calculates the calorie amount of the product.
-     * Cast to float to decrease memory usage.
      *
      * @return The calorie amount of the product.
      */
     public float findCalorie() {
+        return findCalorie(getProtein(), getCarb(), getFat());
+    }
+
+    /**
+     * Calculates the calorie amount from the macros.
+     * Cast to float to decrease memory usage.
+     *
+     * @param protein Protein of the product.
+     * @param carb    Carb of the product.
+     * @param fat     Fat of the product.
+     * @return The calorie amount.
+     */
+    public static float findCalorie(float protein, float carb, float fat) {
 
         return (float) 4 * protein + 4 * carb + 9 * fat;
     }
 
 
-}
\ No newline at end of file
+}
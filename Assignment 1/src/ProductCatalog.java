@@ -0,0 +1,154 @@
+import java.util.HashMap;
+
+/**
+ * The product types known by one or more machines. Every different (name, price, nutrition)
+ * is kept once, so the slots only need a reference to their type and their stock.
+ * Machines can share a catalog; it can be used from many threads.
+ *
+ * A catalog can be backed by a CatalogFile. Then the machines take the values of the products in the file
+ * from the file, and the values written in their product lines are not read.
+ */
+public class ProductCatalog {
+    private final HashMap<String, ProductType[]> typesByName = new HashMap<>(); // usually one type for a name
+    private int size = 0;
+
+    private final CatalogFile file; // null if the values always come from the product lines
+    // types of the file products used so far, by their offsets in the file; open addressing, 0 marks an empty place
+    private int[] offsets = new int[16];
+    private ProductType[] typesByOffset = new ProductType[16];
+    private int fileTypeCount = 0;
+
+    /**
+     * Creates an empty catalog.
+     */
+    public ProductCatalog() {
+        this(null);
+    }
+
+    /**
+     * Creates a catalog whose products come from the given catalog file first.
+     *
+     * @param file The mapped catalog file.
+     */
+    public ProductCatalog(CatalogFile file) {
+        this.file = file;
+    }
+
+    /**
+     * Finds the product with the given name in the catalog file. Only the products a machine uses are turned into types.
+     *
+     * @param name Name of the product.
+     * @return The type of the product, null if the catalog has no file or the file has no such product.
+     */
+    public ProductType lookup(String name) {
+        if (file == null) {
+            return null;
+        }
+        int offset = file.find(name);
+        if (offset == -1) {
+            return null;
+        }
+        synchronized (this) {
+            int index = indexOf(offset);
+            if (offsets[index] == 0) {
+                offsets[index] = offset;
+                typesByOffset[index] = intern(name, file.getPrice(offset), file.getProtein(offset), file.getCarb(offset), file.getFat(offset), file.getCalorie(offset));
+                if (++fileTypeCount * 2 > offsets.length) {
+                    resize();
+                    index = indexOf(offset);
+                }
+            }
+            return typesByOffset[index];
+        }
+    }
+
+    /**
+     * Checks if the catalog is backed by a catalog file.
+     *
+     * @return True if the products are looked up in a file first.
+     */
+    public boolean hasFile() {
+        return file != null;
+    }
+
+    private int indexOf(int offset) {
+        int mask = offsets.length - 1;
+        int index = (offset * 0x9E3779B9 >>> 16) & mask;
+        while (offsets[index] != 0 && offsets[index] != offset) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize() {
+        int[] oldOffsets = offsets;
+        ProductType[] oldTypes = typesByOffset;
+        offsets = new int[oldOffsets.length * 2];
+        typesByOffset = new ProductType[oldOffsets.length * 2];
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] != 0) {
+                int index = indexOf(oldOffsets[i]);
+                offsets[index] = oldOffsets[i];
+                typesByOffset[index] = oldTypes[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the type with the given values, creating it if it is new. The calorie is calculated from the macros.
+     *
+     * @param name    Name of the product.
+     * @param price   Price of the product.
+     * @param protein Protein of the product.
+     * @param carb    Carb of the product.
+     * @param fat     Fat of the product.
+     * @return The shared product type.
+     */
+    public ProductType intern(String name, short price, float protein, float carb, float fat) {
+        return intern(name, price, protein, carb, fat, Product.findCalorie(protein, carb, fat));
+    }
+
+    /**
+     * Returns the type with the given values, creating it if it is new.
+     *
+     * @param name    Name of the product.
+     * @param price   Price of the product.
+     * @param protein Protein of the product.
+     * @param carb    Carb of the product.
+     * @param fat     Fat of the product.
+     * @param calorie Calorie of the product.
+     * @return The shared product type.
+     */
+    public synchronized ProductType intern(String name, short price, float protein, float carb, float fat, float calorie) {
+        ProductType[] types = typesByName.get(name);
+        if (types != null) {
+            for (ProductType type : types) {
+                if (type.matches(price, protein, carb, fat, calorie)) {
+                    return type;
+                }
+            }
+        }
+
+        // a new type; the name of an older type with the same name is used so that the string is kept once
+        ProductType type = new ProductType(types == null ? name : types[0].getName(), price, protein, carb, fat, calorie);
+        if (types == null) {
+            typesByName.put(name, new ProductType[]{type});
+        } else {
+            ProductType[] newTypes = new ProductType[types.length + 1];
+            System.arraycopy(types, 0, newTypes, 0, types.length);
+            newTypes[types.length] = type;
+            typesByName.put(name, newTypes);
+        }
+        size++;
+        return type;
+    }
+
+    /**
+     * Finds how many different product types are known.
+     *
+     * @return The number of types.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * The values of a product that are the same for all of its items: name, price and nutrition.
+ * A product type is never changed after it is created, so one object is shared by all the slots
+ * (and all the machines) selling the same product. It is created by ProductCatalog.
+ */
+public final class ProductType {
+
+    /*
+    Used float and short in general for the sake of memory usage.
+     */
+    private final String name;
+    private final short price;
+    private final float protein;
+    private final float carb;
+    private final float fat;
+    private final float calorie;
+
+    ProductType(String name, short price, float protein, float carb, float fat, float calorie) {
+        this.name = name;
+        this.price = price;
+        this.protein = protein;
+        this.carb = carb;
+        this.fat = fat;
+        this.calorie = calorie;
+    }
+
+    //getters
+
+    public String getName() {
+        return name;
+    }
+
+    public short getPrice() {
+        return price;
+    }
+
+    public float getProtein() {
+        return protein;
+    }
+
+    public float getCarb() {
+        return carb;
+    }
+
+    public float getFat() {
+        return fat;
+    }
+
+    public float getCalorie() {
+        return calorie;
+    }
+
+    /**
+     * Returns the value of the given nutrient.
+     *
+     * @param nutrient One of CARB, PROTEIN, FAT and CALORIE.
+     * @return The value of the nutrient.
+     */
+    public float getValue(String nutrient) {
+        float value = 0;
+        if (nutrient.equals("CARB")) {
+            value = carb;
+        } else if (nutrient.equals("PROTEIN")) {
+            value = protein;
+        } else if (nutrient.equals("FAT")) {
+            value = fat;
+        } else if (nutrient.equals("CALORIE")) {
+            value = calorie;
+        }
+        return value + 0.0f; // turns -0.0 into 0.0 so that the sorted indexes compare values like the >= and <= operators do
+    }
+
+    /**
+     * Checks if this type has exactly the given values. Floats are compared by their bits,
+     * so two values that print the same but differ are kept apart.
+     */
+    boolean matches(short price, float protein, float carb, float fat, float calorie) {
+        return this.price == price
+                && Float.floatToIntBits(this.protein) == Float.floatToIntBits(protein)
+                && Float.floatToIntBits(this.carb) == Float.floatToIntBits(carb)
+                && Float.floatToIntBits(this.fat) == Float.floatToIntBits(fat)
+                && Float.floatToIntBits(this.calorie) == Float.floatToIntBits(calorie);
+    }
+}
@@ -1,9 +1,18 @@
+import java.util.Arrays;
+
 /**
  * Class representing a purchase made from the machine.
  */
 public class Purchase {
+    private final Machine machine; // the machine this purchase is made from
     private String type; // We don't use it for now. It might be useful if the machine accepts different kind of payment in the future.
-    private short[] money;
+    private short[] money = new short[8];
+    private int moneyCount; // number of money values in use, the array can be longer to be reused for the next purchase
+    private int[] givenChange; // coins of each denomination given as the change of the last sale, null if the machine has no coin inventory
+
+    public Purchase(Machine machine) {
+        this.machine = machine;
+    }
 
     public String getType() {
         return type;
@@ -14,11 +23,31 @@ public class Purchase {
     }
 
     public short[] getMoney() {
-        return money;
+        return Arrays.copyOf(money, moneyCount);
     }
 
     public void setMoney(short[] money) {
         this.money = money;
+        this.moneyCount = money.length;
+    }
+
+    /**
+     * Empties the money array so that this object can be used for the next purchase.
+     */
+    public void clearMoney() {
+        moneyCount = 0;
+    }
+
+    /**
+     * Adds the given money to the end of the money array, making the array larger if needed.
+     *
+     * @param value The value of the money
+     */
+    public void addMoney(short value) {
+        if (moneyCount == money.length) {
+            money = Arrays.copyOf(money, money.length * 2 + 1);
+        }
+        money[moneyCount++] = value;
     }
 
     /**
@@ -41,31 +70,43 @@ public class Purchase {
      * @param output          The output file to write on
      * @return 0 if successful, -1 if the purchase cannot be completed.
      */
-    public short buyWithNumber(int wantedNum, short givenValidMoney, String output) {
-        if (wantedNum > 24) {
-            FileOutput.writeToFile(output, "INFO: Number cannot be accepted. Please try again with another number.", true, true);
+    public short buyWithNumber(int wantedNum, short givenValidMoney, OutputSink output) {
+        if (wantedNum < 0 || wantedNum >= machine.getSlotCount()) {
+            output.write("INFO: Number cannot be accepted. Please try again with another number.", true);
             return -1;
         } else {
 
-            // when we divide the wanted slot num with the number of rows, the quotient gives the row and the remainder gives the column.
-            Product wantedProduct = Machine.getProductSlots(wantedNum / 4, wantedNum % 4);
+            // when we divide the wanted slot num with the number of columns, the quotient gives the row and the remainder gives the column.
+            int row = wantedNum / machine.getColumnNumber();
+            int col = wantedNum % machine.getColumnNumber();
+            Product wantedProduct = machine.getProductSlots(row, col);
 
             if (wantedProduct == null) {
-                FileOutput.writeToFile(output, "INFO: This slot is empty, your money will be returned.", true, true);
+                output.write("INFO: This slot is empty, your money will be returned.", true);
+                machine.getRecorder().failure(MetricsRecorder.emptySlot);
                 return -1;
             } else {
-                if (givenValidMoney >= wantedProduct.getPrice()) { // if the given money is enough, proceed to buy
-                    FileOutput.writeToFile(output, "PURCHASE: You have bought one " + wantedProduct.getName(), true, true);
-                    FileOutput.writeToFile(output, "RETURN: Returning your change: " + (givenValidMoney - wantedProduct.getPrice()) + " TL", true, true);
-                    wantedProduct.setStock(wantedProduct.getStock() - 1);
-
-                    // removes the product from the array if the stock is finished after buying
-                    if (wantedProduct.getStock() == 0) {
-                        Machine.setProductSlots(wantedNum / 4, wantedNum % 4, null);
+                // the product is a view of the slot, so the values are read before the slot is emptied
+                String name = wantedProduct.getName();
+                short price = wantedProduct.getPrice();
+                if (givenValidMoney >= price) { // if the given money is enough, proceed to buy
+                    // also removes the product from the machine if the stock is finished after buying
+                    int stockLeft = sell(row, col, wantedProduct, price, givenValidMoney);
+                    if (stockLeft == -1) { // another terminal has bought the last one
+                        output.write("INFO: This slot is empty, your money will be returned.", true);
+                        machine.getRecorder().failure(MetricsRecorder.emptySlot);
+                        return -1;
+                    } else if (stockLeft == -2) {
+                        writeNoChange(output);
+                        return -1;
                     }
+                    record(wantedNum, price, (short) (givenValidMoney - price), stockLeft);
+                    output.write("PURCHASE: You have bought one " + name, true);
+                    writeChange(givenValidMoney - price, output);
 
                 } else {
-                    FileOutput.writeToFile(output, "INFO: Insufficient money, try again with more money.", true, true);
+                    output.write("INFO: Insufficient money, try again with more money.", true);
+                    machine.getRecorder().failure(MetricsRecorder.insufficientMoney);
                     return -1;
                 }
             }
@@ -80,62 +121,152 @@ public class Purchase {
      * with the purchase.
      *
      * @param wantedValue     The desired value of the attribute (e.g., protein, carb, fat, calorie).
-     * @param parts           The parts of the purchase input.
+     * @param nutrient        The attribute wanted (CARB, PROTEIN, FAT or CALORIE).
      * @param givenValidMoney The total valid money provided by the user.
      * @param output          The output file to write on
      * @return 0 if successful, -1 if the purchase cannot be completed.
      */
-    public short buyWithValue(int wantedValue, String[] parts, short givenValidMoney, String output) {
-        boolean found = false; // to keep track if a suitable product is found or not.
-        for (int row = 0; row < 6; row++) {
-            for (int col = 0; col < 4; col++) {
-                Product product = Machine.getProductSlots(row, col);
-
-                if (product != null) {
-                    float productValue = 0; // This represents the productValue of the product. (carb etc.) Given 0 just to initate.
-
-                    // gets the values according to the choice
-                    if (parts[2].equals("CARB")) {
-                        productValue = product.getCarb();
-                    } else if (parts[2].equals("PROTEIN")) {
-                        productValue = product.getProtein();
-                    } else if (parts[2].equals("FAT")) {
-                        productValue = product.getFat();
-                    } else if (parts[2].equals("CALORIE")) {
-                        productValue = product.getCalorie();
-                    }
+    public short buyWithValue(int wantedValue, String nutrient, short givenValidMoney, OutputSink output) {
+        // the machine keeps the products sorted by each nutrient, so there is no need to look at every slot
+        while (true) {
+            int slot = machine.findSlotWithValue(nutrient, wantedValue);
+            if (slot == -1) {
+                output.write("INFO: Product not found, your money will be returned.", true);
+                machine.getRecorder().failure(MetricsRecorder.productNotFound);
+                return -1;
+            }
 
+            int row = slot / machine.getColumnNumber();
+            int col = slot % machine.getColumnNumber();
+            Product product = machine.getProductSlots(row, col);
+            if (product == null) {
+                continue; // emptied by another terminal after the search, search again
+            }
+            // the product is a view of the slot, so the values are read before the slot is emptied
+            String name = product.getName();
+            short price = product.getPrice();
+            if (givenValidMoney >= price) { // if the given money is enough, proceed to buy
+                // also removes the product from the machine if the stock is finished after buying
+                int stockLeft = sell(row, col, product, price, givenValidMoney);
+                if (stockLeft == -1) {
+                    continue; // another terminal has bought the last one, search again
+                } else if (stockLeft == -2) {
+                    writeNoChange(output);
+                    return -1;
+                }
+                record(slot, price, (short) (givenValidMoney - price), stockLeft);
+                output.write("PURCHASE: You have bought one " + name, true);
+                writeChange(givenValidMoney - price, output);
+                return 0;
+            } else {
+                output.write("INFO: Insufficient money, try again with more money.", true);
+                machine.getRecorder().failure(MetricsRecorder.insufficientMoney);
+                return -1;
+            }
+        }
+    }
 
-                    if (productValue >= wantedValue - 5 && productValue <= wantedValue + 5) {
-                        found = true;
-                        if (givenValidMoney >= product.getPrice()) { // if the given money is enough, proceed to buy
-                            FileOutput.writeToFile(output, "PURCHASE: You have bought one " + product.getName(), true, true);
-                            FileOutput.writeToFile(output, "RETURN: Returning your change: " + (givenValidMoney - product.getPrice()) + " TL", true, true);
-                            product.setStock(product.getStock() - 1);
-                            // removes the product from the array if the stock is finished after buying
-                            if (product.getStock() == 0) {
-                                Machine.setProductSlots(row, col, null);
-                            }
-
-                            break;
-                        } else {
-                            FileOutput.writeToFile(output, "INFO: Insufficient money, try again with more money.", true, true);
-                            return -1;
-                        }
-                    }
+    /**
+     * Buys the product matching all the constraints of a query, such as "PROTEIN>=30 and CALORIE<=400".
+     * The cheapest matching product that the money can pay is bought, or the closest one to the targets
+     * if the query has any.
+     * Gives related info messages if there is a problem with the purchase.
+     *
+     * @param query           The constraints of the purchase.
+     * @param givenValidMoney The total valid money provided by the user.
+     * @param output          The output file to write on
+     * @return 0 if successful, -1 if the purchase cannot be completed.
+     */
+    public short buyWithQuery(NutrientQuery query, short givenValidMoney, OutputSink output) {
+        while (true) {
+            int slot = machine.findSlotMatching(query, givenValidMoney);
+            if (slot == -1) {
+                // tells the user whether a product matches at all, or only the money is not enough
+                if (machine.findSlotMatching(query, Float.POSITIVE_INFINITY) == -1) {
+                    output.write("INFO: Product not found, your money will be returned.", true);
+                    machine.getRecorder().failure(MetricsRecorder.productNotFound);
+                } else {
+                    output.write("INFO: Insufficient money, try again with more money.", true);
+                    machine.getRecorder().failure(MetricsRecorder.insufficientMoney);
                 }
+                return -1;
+            }
 
+            int row = slot / machine.getColumnNumber();
+            int col = slot % machine.getColumnNumber();
+            Product product = machine.getProductSlots(row, col);
+            if (product == null) {
+                continue; // emptied by another terminal after the search, search again
             }
-            if (found) {
-                break; // break from the outer loop if the product is found
+            // the product is a view of the slot, so the values are read before the slot is emptied
+            String name = product.getName();
+            short price = product.getPrice();
+            int stockLeft = sell(row, col, product, price, givenValidMoney);
+            if (stockLeft == -1) {
+                continue; // another terminal has bought the last one, search again
+            } else if (stockLeft == -2) {
+                writeNoChange(output);
+                return -1;
             }
+            record(slot, price, (short) (givenValidMoney - price), stockLeft);
+            output.write("PURCHASE: You have bought one " + name, true);
+            writeChange(givenValidMoney - price, output);
+            return 0;
         }
-        if (!found) {
-            FileOutput.writeToFile(output, "INFO: Product not found, your money will be returned.", true, true);
-            return -1;
+    }
 
+    /**
+     * Takes one item from the slot. If the machine has a coin inventory, the money is put into it and the change
+     * is taken from it, and the item is not taken if the change cannot be made.
+     *
+     * @return Stock left in the slot, -1 if the slot has changed since the product is found,
+     * -2 if the change cannot be made from the coins of the machine.
+     */
+    private int sell(int row, int col, Product product, short price, short givenValidMoney) {
+        CoinInventory coins = machine.getCoinInventory();
+        if (coins == null) {
+            givenChange = null;
+            return machine.takeFromSlot(row, col, product);
+        }
+        // the slot is checked, the coins are changed and the item is taken without another purchase in between
+        synchronized (machine) {
+            Product current = machine.getProductSlots(row, col);
+            if (current == null || current.getGeneration() != product.getGeneration()) {
+                return -1;
+            }
+            givenChange = coins.sell(money, moneyCount, givenValidMoney - price);
+            if (givenChange == null) {
+                return -2;
+            }
+            return machine.takeFromSlot(row, col, product);
+        }
+    }
+
+    /**
+     * Writes the RETURN line of a completed purchase, with the coins given if the machine has a coin inventory.
+     */
+    private void writeChange(int change, OutputSink output) {
+        if (givenChange == null || change == 0) {
+            output.write("RETURN: Returning your change: " + change + " TL", true);
+        } else {
+            output.write("RETURN: Returning your change: " + change + " TL (" + CoinInventory.describe(givenChange) + ")", true);
+        }
+    }
+
+    private void writeNoChange(OutputSink output) {
+        output.write("INFO: Exact change cannot be given, your money will be returned.", true);
+        machine.getRecorder().failure(MetricsRecorder.noChange);
+    }
+
+    /**
+     * Writes the completed purchase to the journal of the machine, if it has one, and gives the sale to its recorder.
+     */
+    private void record(int slot, short price, short change, int stockLeft) {
+        machine.getRecorder().sale(slot, price);
+        PurchaseJournal journal = machine.getJournal();
+        if (journal != null) {
+            journal.record(slot, price, change, stockLeft);
         }
-        return 0;
     }
 
     /**
@@ -145,15 +276,8 @@ public class Purchase {
      * @return 0 if valid, -1 if invalid.
      */
     public static short isValidMoney(short money) {
-        short[] validMoney = {1, 5, 10, 20, 50, 100, 200};
-        boolean valid = false;
-        for (short i : validMoney) {
-            if (i == money) {
-                valid = true;
-                break;
-            }
-        }
-        if (!valid) {
+        // the valid values are looked up in a table instead of searching an array for every coin
+        if (CoinInventory.indexOf(money) == -1) {
             return -1;
         }
         return 0;
@@ -167,10 +291,10 @@ public class Purchase {
      * @param output The output file to write the info message
      * @return 0 if there is no problem, -1 if the money array is wrong
      */
-    public int isValidArray(String output){
-        for (short i: money){
-            if (isValidMoney(i) == -1){
-                FileOutput.writeToFile(output, "INFO: Wrong money given. GMM only accepts 1, 5, 10, 20, 50, 100 and 200 TL",true,true);
+    public int isValidArray(OutputSink output){
+        for (int i = 0; i < moneyCount; i++){
+            if (isValidMoney(money[i]) == -1){
+                output.write("INFO: Wrong money given. GMM only accepts 1, 5, 10, 20, 50, 100 and 200 TL", true);
                 return -1;
             }
 
@@ -179,11 +303,11 @@ public class Purchase {
     }
 
 
-    public short totalValidMoney(String output) {
+    public short totalValidMoney(OutputSink output) {
         short total = 0;
-        for (short givenMoney : money) {
-            if (isValidMoney(givenMoney) == 0) {
-                total += givenMoney;
+        for (int i = 0; i < moneyCount; i++) {
+            if (isValidMoney(money[i]) == 0) {
+                total += money[i];
             }
         }
         return total;
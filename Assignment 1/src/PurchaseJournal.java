@@ -0,0 +1,202 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * A binary file that every completed purchase is added to, so the purchases made since the last
+ * snapshot of a machine can be applied again after the program stops in the middle of a run.
+ * The records are collected in memory and written and synced to the disk together, once for every batch,
+ * so the disk is not synced for every purchase. A batch that does not fill up is written by a timer when its
+ * first purchase has waited for the maximum delay, so only the purchases of that last delay can be lost.
+ *
+ * File format (big-endian), version 2:
+ * magic "GMMJ", version (short), then for every purchase:
+ * slot (int), price (short), change (short), stock left in the slot (byte).
+ */
+public class PurchaseJournal implements Closeable {
+    private static final int magic = 0x474D4D4A; // "GMMJ"
+    private static final short version = 2;
+    private static final int headerSize = 6;
+    private static final int recordSize = 9;
+
+    private final FileChannel channel;
+    private final ByteBuffer batch;
+    private final long maxDelay; // milliseconds a purchase can wait in the batch
+    private final Timer timer = new Timer("purchase journal", true);
+    private TimerTask pendingCommit; // commits the batch when its first purchase has waited maxDelay, null if the batch is empty
+
+    /**
+     * Creates the journal file at given path, from zero.
+     *
+     * @param path      Path for the journal file.
+     * @param batchSize Number of purchases written and synced together.
+     * @param maxDelay  Milliseconds a purchase can wait before its batch is written, even if the batch is not full.
+     * @throws IOException If the file cannot be created.
+     */
+    public PurchaseJournal(String path, int batchSize, long maxDelay) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        if (maxDelay <= 0) {
+            throw new IllegalArgumentException("Maximum delay must be positive.");
+        }
+        this.maxDelay = maxDelay;
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        batch = ByteBuffer.allocateDirect(Math.max(batchSize * recordSize, headerSize));
+        batch.putInt(magic);
+        batch.putShort(version);
+        commit();
+    }
+
+    /**
+     * Adds a completed purchase to the journal. The batch is written and synced when it is full,
+     * or when this purchase is the first of the batch and it has waited for the maximum delay.
+     *
+     * @param slot      The slot the product is bought from.
+     * @param price     Price of the product.
+     * @param change    Money returned to the user.
+     * @param stockLeft Stock left in the slot after the purchase.
+     * @throws UncheckedIOException If the journal cannot be written.
+     */
+    public synchronized void record(int slot, short price, short change, int stockLeft) {
+        if (batch.position() == 0) {
+            pendingCommit = new TimerTask() {
+                @Override
+                public void run() {
+                    try {
+                        commit();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            };
+            timer.schedule(pendingCommit, maxDelay);
+        }
+        batch.putInt(slot);
+        batch.putShort(price);
+        batch.putShort(change);
+        batch.put((byte) stockLeft);
+        if (batch.remaining() < recordSize) {
+            try {
+                commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes and syncs the purchases that are waiting in the batch.
+     *
+     * @throws IOException If the journal cannot be written.
+     */
+    public synchronized void commit() throws IOException {
+        if (batch.position() == 0) {
+            return;
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        channel.force(false);
+        batch.clear();
+        if (pendingCommit != null) {
+            pendingCommit.cancel();
+            pendingCommit = null;
+        }
+    }
+
+    /**
+     * Commits the last batch, stops the timer and closes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        timer.cancel();
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Applies the purchases in the journal to a machine restored from the snapshot taken when the journal was started.
+     * A record that is cut in the middle (the program stopped while writing it) is ignored.
+     * The price of every record must be the price in the slot, the change and the price must add up to money
+     * that can be given, and the stocks left in a slot must be the stocks the slot goes down to, each one once, in any order.
+     * The whole journal is checked before the first purchase is applied, so the machine is not changed if it is wrong.
+     *
+     * @param path    Path to the journal file.
+     * @param machine The machine to apply the purchases to.
+     * @return Number of purchases applied.
+     * @throws IOException If the file cannot be read, or it does not belong to this machine.
+     */
+    public static int replay(String path, Machine machine) throws IOException {
+        try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            if (buffer.remaining() < headerSize || buffer.getInt() != magic) {
+                throw new IOException("\"" + path + "\" is not a purchase journal.");
+            }
+            short fileVersion = buffer.getShort();
+            if (fileVersion != version) {
+                throw new IOException("Journal version " + fileVersion + " is not supported.");
+            }
+
+            int start = buffer.position();
+            int[] startingStock = new int[machine.getSlotCount()]; // stock of the slot before its first record, 0 if it has none
+            long[] stocksLeft = new long[machine.getSlotCount()]; // bit s is set if a record of the slot has stock left s
+            int count = 0;
+            while (buffer.remaining() >= recordSize) {
+                int slot = buffer.getInt();
+                short price = buffer.getShort();
+                short change = buffer.getShort();
+                int stockLeft = buffer.get();
+                String purchase = "Purchase " + (count + 1) + " of the journal";
+                if (slot < 0 || slot >= machine.getSlotCount()) {
+                    throw new IOException(purchase + " is from slot " + slot + ", which is not in the machine.");
+                }
+                int row = slot / machine.getColumnNumber();
+                int col = slot % machine.getColumnNumber();
+                Product product = machine.getProductSlots(row, col);
+                if (product == null) {
+                    throw new IOException(purchase + " is from slot " + slot + ", which is empty in the machine.");
+                }
+                if (product.getPrice() != price) {
+                    throw new IOException(purchase + " is for " + price + " TL, but the product in slot " + slot + " costs " + product.getPrice() + " TL.");
+                }
+                // the money given is a short, as Purchase.totalValidMoney adds it up
+                if (change < 0 || change + price > Short.MAX_VALUE) {
+                    throw new IOException(purchase + " returns " + change + " TL for " + price + " TL, which cannot be paid.");
+                }
+                if (startingStock[slot] == 0) {
+                    startingStock[slot] = product.getStock();
+                }
+                // terminals working at the same time may have written the records out of order,
+                // so the stocks left are only checked to be below the starting stock and not repeated
+                if (stockLeft < 0 || stockLeft >= startingStock[slot] || (stocksLeft[slot] & (1L << stockLeft)) != 0) {
+                    throw new IOException(purchase + " leaves " + stockLeft + " items in slot " + slot + ", which does not follow its stock.");
+                }
+                stocksLeft[slot] |= 1L << stockLeft;
+                count++;
+            }
+
+            // every record is right, each one takes one item
+            buffer.position(start);
+            for (int i = 0; i < count; i++) {
+                int slot = buffer.getInt();
+                buffer.position(buffer.position() + recordSize - 4);
+                int row = slot / machine.getColumnNumber();
+                int col = slot % machine.getColumnNumber();
+                machine.takeFromSlot(row, col, machine.getProductSlots(row, col));
+            }
+            return count;
+        }
+    }
+}
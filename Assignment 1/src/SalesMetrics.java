@@ -0,0 +1,128 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The default MetricsRecorder. Counts the sales and the revenue of every slot, the failed purchases,
+ * and keeps a histogram of the time of every operation, all in atomic counters, so recording never waits on a lock.
+ * The histograms have one bucket for every power of two nanoseconds, so the percentiles in the summary
+ * are upper bounds within a factor of two.
+ */
+public class SalesMetrics implements MetricsRecorder {
+    private static final int buckets = 64; // bucket b holds the times from 2^(b-1) to 2^b - 1 nanoseconds
+
+    private final AtomicLongArray sales; // items sold, per slot
+    private final AtomicLongArray revenue; // money taken, per slot
+    private final AtomicLongArray failures = new AtomicLongArray(failureNames.length);
+    private final AtomicLongArray histograms = new AtomicLongArray(operationNames.length * buckets);
+    private final AtomicLongArray totalNanos = new AtomicLongArray(operationNames.length);
+
+    /**
+     * Creates the metrics of a machine.
+     *
+     * @param slotCount Number of slots of the machine.
+     */
+    public SalesMetrics(int slotCount) {
+        sales = new AtomicLongArray(slotCount);
+        revenue = new AtomicLongArray(slotCount);
+    }
+
+    @Override
+    public void sale(int slot, short price) {
+        sales.incrementAndGet(slot);
+        revenue.addAndGet(slot, price);
+    }
+
+    @Override
+    public void failure(int kind) {
+        failures.incrementAndGet(kind);
+    }
+
+    @Override
+    public void latency(int operation, long nanos) {
+        int bucket = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0));
+        histograms.incrementAndGet(operation * buckets + Math.min(bucket, buckets - 1));
+        totalNanos.addAndGet(operation, nanos);
+    }
+
+    //getters
+
+    public long getSales(int slot) {
+        return sales.get(slot);
+    }
+
+    public long getRevenue(int slot) {
+        return revenue.get(slot);
+    }
+
+    public long getFailures(int kind) {
+        return failures.get(kind);
+    }
+
+    /**
+     * Finds how many times the operation is measured.
+     *
+     * @param operation One of the operations of MetricsRecorder.
+     * @return The number of measurements.
+     */
+    public long getCount(int operation) {
+        long count = 0;
+        for (int b = 0; b < buckets; b++) {
+            count += histograms.get(operation * buckets + b);
+        }
+        return count;
+    }
+
+    /**
+     * Finds a time that the given share of the measurements of the operation are not longer than.
+     *
+     * @param operation  One of the operations of MetricsRecorder.
+     * @param percentile The share, between 0 and 1.
+     * @return The upper bound of the bucket holding the percentile, in nanoseconds; 0 if nothing is measured.
+     */
+    public long getPercentile(int operation, double percentile) {
+        long count = getCount(operation);
+        long wanted = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int b = 0; b < buckets; b++) {
+            seen += histograms.get(operation * buckets + b);
+            if (seen > 0 && seen >= wanted) {
+                return b == 0 ? 0 : (1L << b) - 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes a summary of the metrics: the slots that sold something, the failed purchases and the times of the operations.
+     * The counters are read one by one while the machine may still be running, so a summary written then is not exact.
+     *
+     * @param output The output file to write on
+     */
+    public void writeSummary(OutputSink output) {
+        output.write("-----Metrics-----", true);
+        long totalSales = 0;
+        long totalRevenue = 0;
+        for (int slot = 0; slot < sales.length(); slot++) {
+            long sold = sales.get(slot);
+            if (sold > 0) {
+                output.write("Slot " + slot + ": " + sold + " sold, " + revenue.get(slot) + " TL", true);
+                totalSales += sold;
+                totalRevenue += revenue.get(slot);
+            }
+        }
+        output.write("Total: " + totalSales + " sold, " + totalRevenue + " TL", true);
+        for (int kind = 0; kind < failureNames.length; kind++) {
+            output.write("INFO " + failureNames[kind] + ": " + failures.get(kind), true);
+        }
+        for (int operation = 0; operation < operationNames.length; operation++) {
+            long count = getCount(operation);
+            if (count == 0) {
+                continue;
+            }
+            output.write(operationNames[operation] + ": " + count + " calls, mean " + totalNanos.get(operation) / count + " ns"
+                    + ", p50 <= " + getPercentile(operation, 0.5) + " ns"
+                    + ", p99 <= " + getPercentile(operation, 0.99) + " ns"
+                    + ", max <= " + getPercentile(operation, 1) + " ns", true);
+        }
+        output.write("----------", true);
+    }
+}
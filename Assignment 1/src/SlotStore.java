@@ -0,0 +1,163 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the slots of the machine in parallel arrays indexed by slot number, instead of one object for every slot.
+ * The price and the nutrition of every slot are kept in primitive columns, so the loops reading one value of
+ * many slots (filling the value indexes, the MATCH tree and the printed rows) go through one array without
+ * following a reference per slot. The name is kept once, in the shared ProductType of the product that the
+ * ProductCatalog gives; the columns are copied from it when a product is placed and cannot be changed after that.
+ */
+public class SlotStore {
+    private final ProductCatalog catalog;
+    private final ProductType[] types;
+    private final short[] prices;
+    private final float[] proteins;
+    private final float[] carbs;
+    private final float[] fats;
+    private final float[] calories;
+    private final int[] stocks; // 0 for an empty slot
+    private final int[] generations; // increased every time a slot is emptied, so an old view of the slot can be told apart
+
+    private final int columns;
+    private final boolean[] changedRows; // rows that have a slot changed since the row was last printed
+
+    /**
+     * Creates a store of empty slots.
+     *
+     * @param slotCount Number of slots.
+     * @param columns   Number of columns of the machine, used to know which row a slot is in.
+     * @param catalog   The catalog the product types of the slots come from.
+     */
+    public SlotStore(int slotCount, int columns, ProductCatalog catalog) {
+        this.catalog = catalog;
+        types = new ProductType[slotCount];
+        prices = new short[slotCount];
+        proteins = new float[slotCount];
+        carbs = new float[slotCount];
+        fats = new float[slotCount];
+        calories = new float[slotCount];
+        stocks = new int[slotCount];
+        generations = new int[slotCount];
+        this.columns = columns;
+        changedRows = new boolean[(slotCount + columns - 1) / columns];
+        Arrays.fill(changedRows, true);
+    }
+
+    public int size() {
+        return stocks.length;
+    }
+
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Puts a new product to an empty slot.
+     *
+     * @param slot  The slot number.
+     * @param type  Type of the product.
+     * @param stock Stock of the product, more than 0.
+     */
+    public void place(int slot, ProductType type, int stock) {
+        types[slot] = type;
+        prices[slot] = type.getPrice();
+        proteins[slot] = type.getProtein();
+        carbs[slot] = type.getCarb();
+        fats[slot] = type.getFat();
+        calories[slot] = type.getCalorie();
+        stocks[slot] = stock;
+        changedRows[slot / columns] = true;
+    }
+
+    /**
+     * Empties the slot. The old type and values are left in place, so a buyer still holding a view
+     * of the slot can read them until it finds out the slot has changed.
+     *
+     * @param slot The slot number.
+     */
+    public void clear(int slot) {
+        stocks[slot] = 0;
+        generations[slot]++;
+        changedRows[slot / columns] = true;
+    }
+
+    public boolean isEmpty(int slot) {
+        return stocks[slot] == 0;
+    }
+
+    /**
+     * Returns the value of the given nutrient of the product in a slot.
+     *
+     * @param slot     The slot number.
+     * @param nutrient One of CARB, PROTEIN, FAT and CALORIE.
+     * @return The value of the nutrient.
+     */
+    public float getValue(int slot, String nutrient) {
+        float value = 0;
+        if (nutrient.equals("CARB")) {
+            value = carbs[slot];
+        } else if (nutrient.equals("PROTEIN")) {
+            value = proteins[slot];
+        } else if (nutrient.equals("FAT")) {
+            value = fats[slot];
+        } else if (nutrient.equals("CALORIE")) {
+            value = calories[slot];
+        }
+        return value + 0.0f; // turns -0.0 into 0.0, as ProductType.getValue does
+    }
+
+    /**
+     * Checks if a slot of the row has changed since the last call for that row, and marks the row as unchanged.
+     *
+     * @param row The row number.
+     * @return True if the row has changed.
+     */
+    public boolean takeRowChanged(int row) {
+        boolean changed = changedRows[row];
+        changedRows[row] = false;
+        return changed;
+    }
+
+    //getters and setters
+
+    public ProductType getType(int slot) {
+        return types[slot];
+    }
+
+    public String getName(int slot) {
+        return types[slot].getName();
+    }
+
+    public short getPrice(int slot) {
+        return prices[slot];
+    }
+
+    public float getProtein(int slot) {
+        return proteins[slot];
+    }
+
+    public float getCarb(int slot) {
+        return carbs[slot];
+    }
+
+    public float getFat(int slot) {
+        return fats[slot];
+    }
+
+    public float getCalorie(int slot) {
+        return calories[slot];
+    }
+
+    public int getStock(int slot) {
+        return stocks[slot];
+    }
+
+    public void setStock(int slot, int stock) {
+        stocks[slot] = stock;
+        changedRows[slot / columns] = true;
+    }
+
+    public int getGeneration(int slot) {
+        return generations[slot];
+    }
+}
@@ -0,0 +1,187 @@
+import java.util.Random;
+
+/**
+ * The occupied slots of a machine sorted by the value of one nutrient, to find the first slot in the machine
+ * whose value is in a range with one search.
+ *
+ * The slots are kept in a treap ordered by (value, slot number), and every node also keeps the smallest slot
+ * number in its subtree. The smallest slot of a range is then found on the two paths to the ends of the range,
+ * in logarithmic time however many values the range has. The nodes are the slots themselves, so the tree is
+ * held in arrays indexed by slot number and adding or removing a slot creates no objects.
+ */
+public class ValueIndex {
+    private static final int none = -1;
+
+    private final float[] values;
+    private final int[] left;
+    private final int[] right;
+    private final int[] priorities;
+    private final int[] minSlots; // the smallest slot number in the subtree of the node
+    private int root = none;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param slotCount Number of slots of the machine.
+     */
+    public ValueIndex(int slotCount) {
+        values = new float[slotCount];
+        left = new int[slotCount];
+        right = new int[slotCount];
+        priorities = new int[slotCount];
+        minSlots = new int[slotCount];
+        Random random = new Random(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            priorities[slot] = random.nextInt();
+        }
+    }
+
+    /**
+     * Adds a slot that is not in the index.
+     *
+     * @param slot  The slot number.
+     * @param value The value of the nutrient of the product in the slot.
+     */
+    public void add(int slot, float value) {
+        values[slot] = value;
+        left[slot] = none;
+        right[slot] = none;
+        minSlots[slot] = slot;
+        root = insert(root, slot);
+    }
+
+    /**
+     * Removes a slot that is in the index.
+     *
+     * @param slot The slot number.
+     */
+    public void remove(int slot) {
+        root = delete(root, slot);
+    }
+
+    /**
+     * Finds the smallest slot number whose value is between the given values, both included.
+     * Values are compared like Float.compare.
+     *
+     * @param low  The smallest value.
+     * @param high The largest value.
+     * @return The slot number, -1 if no slot has a value in the range.
+     */
+    public int findFirst(float low, float high) {
+        // goes down to the first node inside the range, where the paths to the two ends of the range split
+        int node = root;
+        while (node != none) {
+            if (Float.compare(values[node], low) < 0) {
+                node = right[node];
+            } else if (Float.compare(values[node], high) > 0) {
+                node = left[node];
+            } else {
+                break;
+            }
+        }
+        if (node == none) {
+            return none;
+        }
+        int found = node;
+
+        // the left path: every node at or above low counts with its right subtree
+        int n = left[node];
+        while (n != none) {
+            if (Float.compare(values[n], low) >= 0) {
+                found = Math.min(found, Math.min(n, minOf(right[n])));
+                n = left[n];
+            } else {
+                n = right[n];
+            }
+        }
+        // the right path: every node at or below high counts with its left subtree
+        n = right[node];
+        while (n != none) {
+            if (Float.compare(values[n], high) <= 0) {
+                found = Math.min(found, Math.min(n, minOf(left[n])));
+                n = right[n];
+            } else {
+                n = left[n];
+            }
+        }
+        return found;
+    }
+
+    private boolean before(int a, int b) {
+        int compare = Float.compare(values[a], values[b]);
+        return compare < 0 || (compare == 0 && a < b);
+    }
+
+    private int minOf(int node) {
+        return node == none ? Integer.MAX_VALUE : minSlots[node];
+    }
+
+    private void update(int node) {
+        minSlots[node] = Math.min(node, Math.min(minOf(left[node]), minOf(right[node])));
+    }
+
+    private int insert(int node, int slot) {
+        if (node == none) {
+            return slot;
+        }
+        if (before(slot, node)) {
+            left[node] = insert(left[node], slot);
+            if (priorities[left[node]] > priorities[node]) {
+                node = rotateRight(node);
+            }
+        } else {
+            right[node] = insert(right[node], slot);
+            if (priorities[right[node]] > priorities[node]) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private int delete(int node, int slot) {
+        if (node == none) {
+            return none;
+        }
+        if (node == slot) {
+            // the node is rotated down until it has at most one child, then it is replaced by the child
+            if (left[node] == none) {
+                return right[node];
+            }
+            if (right[node] == none) {
+                return left[node];
+            }
+            if (priorities[left[node]] > priorities[right[node]]) {
+                node = rotateRight(node);
+                right[node] = delete(right[node], slot);
+            } else {
+                node = rotateLeft(node);
+                left[node] = delete(left[node], slot);
+            }
+        } else if (before(slot, node)) {
+            left[node] = delete(left[node], slot);
+        } else {
+            right[node] = delete(right[node], slot);
+        }
+        update(node);
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int top = left[node];
+        left[node] = right[top];
+        right[top] = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private int rotateLeft(int node) {
+        int top = right[node];
+        right[node] = left[top];
+        left[top] = node;
+        update(node);
+        update(top);
+        return top;
+    }
+}
@@ -9,17 +9,24 @@ public class BookingSystem {
                 throw new Exception("ERROR: This program works exactly with two command line arguments, the first one is the path to the input file whereas the second one is the path to the output file. Sample usage can be as follows: \"java8 BookingSystem input.txt output.txt\". Program is going to terminate!");
             }
 
-            String[] inputFile = FileIO.readFile(args[0], true, true);
+            CommandReader input = FileIO.readCommands(args[0]);
+            input.hasNext(); // Reads the first command, so that an unreadable input file is found before the output file is created.
             String outputFile = args[1];
 
-            int x = FileIO.writeToFile(outputFile, "", false, false);
-            if (x == -1){ // If writeToFile() returns -1, it means that it caught IOException.
+            OutputFile output = OutputFile.open(outputFile);
+            if (output == null){ // If open() returns null, it means that it caught IOException.
+                input.close();
                 throw new IllegalArgumentException("ERROR: This program cannot write to the \""+ outputFile + "\", please check the permissions to write that directory. Program is going to terminate!");
             }
 
-            Terminal.operations(inputFile,outputFile);
+            try {
+                Terminal.operations(input, output);
+            } finally {
+                output.close(); // Writes the buffered output to the file.
+                input.close();
+            }
 
-        } catch (IOException i){ // The exception coming from the readFile() method.
+        } catch (IOException i){ // The exception coming from reading the input file.
             System.out.println(i.getMessage());
         }
 
@@ -5,7 +5,8 @@ import java.util.ArrayList;
  */
 public abstract class Bus {
 
-    protected boolean[] seats;
+    protected SeatMap seats;
+    private SeatMap givenSeats; // marks the seats given in a sale or a refund while they are checked, empty between them
     private int id;
     private String departure;
     private String destination;
@@ -120,7 +121,7 @@ public abstract class Bus {
      * @param parts  Parts of the line of the input that we are working on.
      * @param output The output file to write on.
      */
-    public abstract void initVoyage(String[] parts, String output);
+    public abstract void initVoyage(CommandTokenizer parts, OutputFile output);
 
     /**
      * Prints the condition of the seats and the revenue of the voyage to the output.
@@ -128,7 +129,7 @@ public abstract class Bus {
      *
      * @param output The output file to write on.
      */
-    public abstract void printVoyage(String output);
+    public abstract void printVoyage(OutputFile output);
 
     /**
      * Sells the wanted empty seats of the voyage with the given id.
@@ -138,7 +139,7 @@ public abstract class Bus {
      * @param parts  Parts of the line of the input that we are working on.
      * @param output The output file to write on.
      */
-    public abstract void sellTicket(String[] parts, String output) throws IllegalArgumentException;
+    public abstract void sellTicket(CommandTokenizer parts, OutputFile output) throws IllegalArgumentException;
 
     /**
      * Refunds the wanted occupied seats of the voyage with given id with some cut.
@@ -148,7 +149,7 @@ public abstract class Bus {
      * @param parts  Parts of the line of the input that we are working on.
      * @param output The output file to write on.
      */
-    public abstract void refundTicket(String[] parts, String output);
+    public abstract void refundTicket(CommandTokenizer parts, OutputFile output);
 
     /**
      * Cancels the voyage and returns the full seat price to the customers.
@@ -156,45 +157,123 @@ public abstract class Bus {
      *
      * @param output The output file to write on.
      */
-    public void cancelVoyage(String output) {
+    public void cancelVoyage(OutputFile output) {
 
-        // if a seat is true (bought), refund the full price of the seat.
-        for (boolean seat : seats) {
-            if (seat) {
-                revenue -= seatPrice;
-            }
+        // refunds the full price of every occupied seat; the seats are counted a word at a time, and the price
+        // is still taken once for every seat so the revenue comes out the same as adding the sales up again
+        for (int occupied = getOccupiedSeatCount(); occupied > 0; occupied--) {
+            revenue -= seatPrice;
         }
 
-        FileIO.writeToFile(output, "Voyage " + id + " was successfully cancelled!", true, true);
-        FileIO.writeToFile(output, "Voyage details can be found below:", true, true);
+        output.write("Voyage " + id + " was successfully cancelled!", true);
+        output.write("Voyage details can be found below:", true);
         printVoyage(output);
 
 
     }
 
     /**
-     * Sorts every existing bus according to their ids and prints the condition of all of them.
+     * Counts the occupied seats of the voyage.
+     *
+     * @return Number of occupied seats.
+     */
+    public int getOccupiedSeatCount() {
+        return seats.cardinality();
+    }
+
+    /**
+     * Checks the seats of a sale or a refund in the order they are given, so that the first problem is reported.
+     *
+     * @param wantedSeats Indexes of the seats, from 0.
+     * @param seatCount   Number of seats in use in the wantedSeats array.
+     * @param selling     True for a sale, false for a refund.
+     * @throws IllegalArgumentException Throws this exception if a seat does not exist, is already sold (already empty
+     *                                  for a refund) or is given more than once.
+     */
+    protected void checkSeats(int[] wantedSeats, int seatCount, boolean selling) throws IllegalArgumentException {
+        if (givenSeats == null) {
+            givenSeats = new SeatMap(seats.size());
+        }
+        // a seat is repeated if it is given again later in the list, so the seats are marked from the end of the list
+        boolean[] repeated = new boolean[seatCount];
+        for (int k = seatCount - 1; k >= 0; k--) {
+            if (wantedSeats[k] < seats.size()) {
+                repeated[k] = givenSeats.get(wantedSeats[k]);
+                givenSeats.set(wantedSeats[k]);
+            }
+        }
+        for (int k = 0; k < seatCount; k++) {
+            if (wantedSeats[k] < seats.size()) {
+                givenSeats.clear(wantedSeats[k]);
+            }
+        }
+
+        for (int k = 0; k < seatCount; k++) {
+            if (wantedSeats[k] >= seats.size()) {
+                throw new IllegalArgumentException("ERROR: There is no such a seat!");
+            }
+            if (seats.get(wantedSeats[k]) == selling) { // the seat is already sold, or already empty for a refund
+                throw new IllegalArgumentException(selling ? "ERROR: One or more seats already sold!" : "ERROR: One or more seats are already empty!");
+            }
+            if (repeated[k]) {
+                throw new IllegalArgumentException(selling ? "ERROR: Same seat can't be bought more than once!" : "ERROR: Same seat can't be refunded more than once!");
+            }
+        }
+    }
+
+    /**
+     * Prints the seats row by row, (*) for empty seats and (X) for occupied seats.
+     *
+     * @param output   The output file to write on.
+     * @param perRow   Number of seats in a row.
+     * @param corridor The seat of the row after which the corridor is drawn, -1 if there is no corridor.
+     */
+    protected void printSeats(OutputFile output, int perRow, int corridor) {
+        StringBuilder text = new StringBuilder(seats.size() * 2 + getRowCount() * 3);
+        int occupied = seats.nextSetBit(0);
+        for (int i = 0; i < seats.size(); i++) {
+            if (i % perRow != 0) { // Every seat except the first one in the row has space character in front.
+                text.append(' ');
+            }
+            if (i == occupied) {
+                text.append('X');
+                occupied = seats.nextSetBit(i + 1);
+            } else {
+                text.append('*');
+            }
+
+            if (i % perRow == perRow - 1) { // Adds new line after the end of a row.
+                text.append('\n');
+            } else if (i % perRow == corridor) {
+                text.append(" |");
+            }
+        }
+        output.write(text.toString(), false);
+    }
+
+    /**
+     * Prints the condition of every existing bus, in the order of their ids.
      *
-     * @param busList The array list which is holding the bus objects.
+     * @param voyages The registry which is holding the bus objects.
      * @param output  The output file to write on.
      */
-    public static void zReport(ArrayList<Bus> busList, String output) {
-        busList.sort((bus1, bus2) -> Integer.compare(bus1.getId(), bus2.getId())); //sorts according to id
+    public static void zReport(VoyageRegistry voyages, OutputFile output) {
+        ArrayList<Bus> busList = voyages.ordered(); // the buses sorted according to id
 
-        FileIO.writeToFile(output, "Z Report:\n----------------", true, true);
+        output.write("Z Report:\n----------------", true);
 
         if (busList.isEmpty()) {
-            FileIO.writeToFile(output, "No Voyages Available!", true, true);
-            FileIO.writeToFile(output, "----------------", true, false);
+            output.write("No Voyages Available!", true);
+            output.write("----------------", false);
         } else {
             for (int i = 0; i < busList.size(); i++) {
                 busList.get(i).printVoyage(output); //calls printvoyage() method for every bus
 
                 //adds a new line after the lines unless it is the last bus in the list.
                 if (i == busList.size() - 1) {
-                    FileIO.writeToFile(output, "----------------", true, false);
+                    output.write("----------------", false);
                 } else {
-                    FileIO.writeToFile(output, "----------------", true, true);
+                    output.write("----------------", true);
                 }
 
             }
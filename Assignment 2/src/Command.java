@@ -0,0 +1,16 @@
+import java.io.IOException;
+
+/**
+ * A command of the input file, run by the terminal when a line starts with its name.
+ */
+public interface Command {
+    /**
+     * Runs the command.
+     *
+     * @param command The parts of the line of the input, the first one is the name of the command.
+     * @param input   The commands of the input file, to check if there are more commands after this one.
+     * @param output  The output file to write on.
+     * @throws IOException If the input file cannot be read.
+     */
+    void run(CommandTokenizer command, CommandReader input, OutputFile output) throws IOException;
+}
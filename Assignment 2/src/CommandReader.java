@@ -0,0 +1,71 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads the commands of the input file one by one while they are run, so that the whole file is never
+ * held in memory. Empty lines are skipped and every command is trimmed.
+ * One command is read ahead when it is asked whether there are more, to know if a command is the last one.
+ */
+public class CommandReader {
+    private final BufferedReader reader;
+    private final String path;
+    private String next; // the command read ahead, null if it is not read yet
+    private boolean ended = false;
+
+    /**
+     * @param reader The reader of the input file.
+     * @param path   The path of the input file, for the error message.
+     */
+    public CommandReader(BufferedReader reader, String path) {
+        this.reader = reader;
+        this.path = path;
+    }
+
+    /**
+     * Checks if there is another command, reading it ahead if needed.
+     *
+     * @return True if there is another command.
+     * @throws IOException If the input file cannot be read.
+     */
+    public boolean hasNext() throws IOException {
+        while (next == null && !ended) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (IOException e) {
+                throw FileIO.cannotRead(path);
+            }
+            if (line == null) {
+                ended = true;
+            } else if (!line.trim().isEmpty()) {
+                next = line.trim();
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * Reads the next command.
+     *
+     * @return The command, null if there are no more commands.
+     * @throws IOException If the input file cannot be read.
+     */
+    public String next() throws IOException {
+        if (!hasNext()) {
+            return null;
+        }
+        String command = next;
+        next = null;
+        return command;
+    }
+
+    /**
+     * Closes the input file.
+     */
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * The commands known by the terminal, found by their names.
+ * A hash table keyed by the name is searched with the part of the line itself, so no String is made for the name.
+ */
+public class CommandRegistry {
+    // open addressing with linear probing; null marks an empty place
+    private String[] names = new String[16];
+    private Command[] commands = new Command[16];
+    private int size = 0;
+
+    /**
+     * Adds a command, or replaces the command with the same name.
+     *
+     * @param name    The name of the command, as it is written in the input file.
+     * @param command The command.
+     */
+    public void register(String name, Command command) {
+        int mask = names.length - 1;
+        int index = spread(name.hashCode()) & mask;
+        while (names[index] != null && !names[index].equals(name)) {
+            index = (index + 1) & mask;
+        }
+        if (names[index] == null) {
+            size++;
+        }
+        names[index] = name;
+        commands[index] = command;
+        if (size * 2 > names.length) {
+            resize(names.length * 2);
+        }
+    }
+
+    /**
+     * Finds the command named by the first part of the line.
+     *
+     * @param line The parts of the line of the input.
+     * @return The command, null if there is no command with the name.
+     */
+    public Command find(CommandTokenizer line) {
+        if (line.count() == 0) {
+            return null;
+        }
+        int mask = names.length - 1;
+        int index = spread(line.hashOf(0)) & mask;
+        while (names[index] != null) {
+            if (line.is(0, names[index])) {
+                return commands[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void resize(int capacity) {
+        String[] oldNames = names;
+        Command[] oldCommands = commands;
+        names = new String[capacity];
+        commands = new Command[capacity];
+        size = 0;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                register(oldNames[i], oldCommands[i]);
+            }
+        }
+    }
+}
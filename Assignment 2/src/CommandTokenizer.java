@@ -0,0 +1,218 @@
+import java.util.Arrays;
+
+/**
+ * Splits a command into its tab separated parts without regular expressions and without copying the parts.
+ * One tokenizer is reused for every command: the parts are kept as places in the command, and ids and seat
+ * lists are parsed from there straight into ints.
+ * The parts are the same as the ones of command.split("\t"), and a seat list is split as split("_") would do.
+ */
+public class CommandTokenizer {
+    private String line = "";
+    private int[] starts = new int[10];
+    private int[] ends = new int[10];
+    private int count = 0;
+    private int[] seats = new int[8]; // the seats of the last parsed seat list, from index 0
+
+    /**
+     * Splits the given command into its parts.
+     *
+     * @param line The command.
+     */
+    public void reset(String line) {
+        this.line = line;
+        count = 0;
+        int start = 0;
+        while (true) {
+            int tab = line.indexOf('\t', start);
+            int end = tab == -1 ? line.length() : tab;
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+            if (tab == -1) {
+                break;
+            }
+            start = tab + 1;
+        }
+        // split() leaves out the empty parts at the end, unless there is no tab at all
+        if (count > 1) {
+            while (count > 0 && starts[count - 1] == ends[count - 1]) {
+                count--;
+            }
+        }
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * @return Number of parts of the command.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Gets a part of the command.
+     *
+     * @param index The index of the part.
+     * @return The part.
+     * @throws ArrayIndexOutOfBoundsException If the command does not have the part.
+     */
+    public String get(int index) {
+        checkIndex(index);
+        return line.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * Checks if a part of the command is the given text, without copying the part.
+     *
+     * @param index The index of the part.
+     * @param text  The text to compare.
+     * @return True if the part is equal to the text, false if it is not or the command does not have the part.
+     */
+    public boolean is(int index, String text) {
+        return index < count && ends[index] - starts[index] == text.length()
+                && line.regionMatches(starts[index], text, 0, text.length());
+    }
+
+    /**
+     * Computes the hash code of a part of the command, equal to the String.hashCode of the part.
+     *
+     * @param index The index of the part.
+     * @return The hash code.
+     */
+    public int hashOf(int index) {
+        checkIndex(index);
+        int hash = 0;
+        for (int i = starts[index]; i < ends[index]; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Parses a part of the command as an int, the same as Integer.parseInt.
+     *
+     * @param index The index of the part.
+     * @return The number.
+     * @throws NumberFormatException If the part is not an integer.
+     */
+    public int getInt(int index) throws NumberFormatException {
+        checkIndex(index);
+        return parseInt(starts[index], ends[index]);
+    }
+
+    /**
+     * Parses a part of the command as a list of seat numbers separated by '_'.
+     * The seats are found in getSeats() after the call, as indexes from 0.
+     *
+     * @param index The index of the part.
+     * @return Number of seats in the list.
+     * @throws IllegalArgumentException Throws this exception if a seat number is not a positive integer.
+     */
+    public int parseSeats(int index) throws IllegalArgumentException {
+        checkIndex(index);
+        int end = ends[index];
+        int start = starts[index];
+        int last = end;
+        if (line.lastIndexOf('_', end - 1) >= start) {
+            // split() leaves out the empty seats at the end when there is at least one '_'
+            while (last > start && line.charAt(last - 1) == '_') {
+                last--;
+            }
+            if (last == start) {
+                return 0;
+            }
+        }
+
+        int seatCount = 0;
+        while (true) {
+            int separator = line.indexOf('_', start);
+            int seatEnd = separator == -1 || separator > last ? last : separator;
+            int seat;
+            try {
+                seat = parseInt(start, seatEnd);
+            } catch (NumberFormatException e) { //Parsing throws NumberFormatException if a seat is not an integer.
+                throw new IllegalArgumentException(String.format("ERROR: %s is not a positive integer, seat number must be a positive integer!", line.substring(start, seatEnd)));
+            }
+            if (seat <= 0) {
+                throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, seat number must be a positive integer!", seat));
+            }
+            if (seatCount == seats.length) {
+                seats = Arrays.copyOf(seats, seatCount * 2);
+            }
+            seats[seatCount++] = seat - 1; //-1 because seat 1 is at index 0 etc.
+            if (seatEnd == last) {
+                return seatCount;
+            }
+            start = seatEnd + 1;
+        }
+    }
+
+    /**
+     * @return The seats of the last parsed seat list, the first parseSeats() of them are in use.
+     */
+    public int[] getSeats() {
+        return seats;
+    }
+
+    /**
+     * Parses the characters of the command between the given places as an int, without copying them.
+     * Works the same as Integer.parseInt: an optional sign, decimal digits and no overflow.
+     *
+     * @param start The place of the first character.
+     * @param end   The place after the last character.
+     * @return The number.
+     * @throws NumberFormatException If the characters are not an integer.
+     */
+    private int parseInt(int start, int end) throws NumberFormatException {
+        if (start == end) {
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        // the number is built as a negative one, since Integer.MIN_VALUE has no positive counterpart
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        int i = start;
+        char first = line.charAt(i);
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            } else if (first != '+') {
+                throw numberFormat(start, end);
+            }
+            if (++i == end) { // a sign alone is not a number
+                throw numberFormat(start, end);
+            }
+        }
+        int multiplyLimit = limit / 10;
+        int result = 0;
+        while (i < end) {
+            int digit = Character.digit(line.charAt(i++), 10);
+            if (digit < 0 || result < multiplyLimit) {
+                throw numberFormat(start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormat(start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private NumberFormatException numberFormat(int start, int end) {
+        return new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+    }
+
+    private void checkIndex(int index) {
+        if (index >= count) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+    }
+}
@@ -1,38 +1,30 @@
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.List;
 
 public class FileIO {
-    public static String[] readFile(String path, boolean discardEmptyLines, boolean trim) throws IOException {
+    /**
+     * Opens the input file to read its commands one by one.
+     *
+     * @param path The path of the input file.
+     * @return The reader of the commands.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static CommandReader readCommands(String path) throws IOException {
         try {
-            List<String> lines = Files.readAllLines(Paths.get(path)); //Gets the content of file to the list.
-            if (discardEmptyLines) { //Removes the lines that are empty with respect to trim.
-                lines.removeIf(line -> line.trim().equals(""));
-            }
-            if (trim) { //Trims each line.
-                lines.replaceAll(String::trim);
-            }
-            return lines.toArray(new String[0]);
+            return new CommandReader(Files.newBufferedReader(Paths.get(path)), path);
         } catch (IOException e) { //Throws IOException with a customized message if there is a problem with the input file.
-            throw new IOException("ERROR: This program cannot read from the \"" + path + "\", either this program does not have read permission to read that file or file does not exist. Program is going to terminate!");
+            throw cannotRead(path);
         }
     }
 
-    public static int writeToFile(String path, String content, boolean append, boolean newLine) {
-        PrintStream ps = null;
-        try {
-            ps = new PrintStream(new FileOutputStream(path, append));
-            ps.print(content + (newLine ? "\n" : ""));
-        } catch (IOException e) {
-            return -1;
-        } finally {
-            if (ps != null) { //Flushes all the content and closes the stream if it has been successfully created.
-                ps.flush();
-                ps.close();
-            }
-        }
-        return 0;
+    /**
+     * Creates the exception for an input file that cannot be read.
+     *
+     * @param path The path of the input file.
+     * @return The exception with the error message.
+     */
+    public static IOException cannotRead(String path) {
+        return new IOException("ERROR: This program cannot read from the \"" + path + "\", either this program does not have read permission to read that file or file does not exist. Program is going to terminate!");
     }
 }
-
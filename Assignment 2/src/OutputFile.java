@@ -0,0 +1,54 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * The output file of the program. It is opened once and everything is written to it through a buffer,
+ * instead of opening and closing the file for every piece of the output.
+ * The buffer is written to the file when it is full and when the file is closed.
+ */
+public class OutputFile {
+    private static final int bufferSize = 1 << 16;
+
+    private final PrintStream stream;
+
+    private OutputFile(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Opens the file for writing, emptying it if it exists.
+     *
+     * @param path The path of the output file.
+     * @return The output file, null if it cannot be opened.
+     */
+    public static OutputFile open(String path) {
+        try {
+            return new OutputFile(new PrintStream(new BufferedOutputStream(new FileOutputStream(path), bufferSize), false));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the content to the output.
+     *
+     * @param content The text to write.
+     * @param newLine True to end the content with a new line.
+     */
+    public void write(String content, boolean newLine) {
+        stream.print(content);
+        if (newLine) {
+            stream.print('\n');
+        }
+    }
+
+    /**
+     * Writes the buffered output to the file and closes it.
+     */
+    public void close() {
+        stream.flush();
+        stream.close();
+    }
+}
@@ -12,7 +12,7 @@ public class PremiumBus extends Bus {
         super(id, departure, destination, rowCount, seatPrice);
         setRefundCut(refundCut);
         setPremiumFee(premiumFee);
-        seats = new boolean[getRowCount() * 3];
+        seats = new SeatMap(getRowCount() * 3);
 
     }
 
@@ -84,49 +84,33 @@ public class PremiumBus extends Bus {
         return getSeatPrice() - getSeatPrice() * ((double) refundCut / 100);
     }
 
+    /**
+     * Counts the occupied premium seats of the voyage.
+     *
+     * @return Number of occupied premium seats.
+     */
+    public int getOccupiedPremiumSeatCount() {
+        return seats.cardinality(3, 0);
+    }
+
     @Override
-    public void initVoyage(String[] parts, String output) {
+    public void initVoyage(CommandTokenizer parts, OutputFile output) {
         String info = String.format("Voyage %d was initialized as a premium (1+2) voyage from %s to %s with %.2f TL priced %d regular seats and %.2f TL priced %d premium seats. Note that refunds will be %d%% less than the paid amount.", getId(), getDeparture(), getDestination(), getSeatPrice(), 2 * getRowCount(), premiumSeatPrice(), getRowCount(), getRefundCut());
-        FileIO.writeToFile(output, info, true, true);
+        output.write(info, true);
     }
 
     @Override
-    public void sellTicket(String[] parts, String output) throws IllegalArgumentException {
+    public void sellTicket(CommandTokenizer parts, OutputFile output) throws IllegalArgumentException {
         double actionCost = 0; //The money taken from the user.
-        String[] sWantedSeats = parts[2].split("_");
-        int[] wantedSeats = new int[sWantedSeats.length];
+        int wantedSeatCount = parts.parseSeats(2); // Switches the wanted seats from String to int.
+        int[] wantedSeats = parts.getSeats();
 
+        checkSeats(wantedSeats, wantedSeatCount, true);
 
-        // Switches the wanted seats from String to int.
-        for (int i = 0; i < sWantedSeats.length; i++) {
-            try {
-                if (Integer.parseInt(sWantedSeats[i]) <= 0) {
-                    throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, seat number must be a positive integer!", Integer.parseInt(sWantedSeats[i])));
-                }
-                wantedSeats[i] = Integer.parseInt(sWantedSeats[i]) - 1; //-1 because seat 1 is at index 0 etc.
-            } catch (NumberFormatException e) { //Parsing throws NumberFormatException if wanted seat is not an integer.
-                throw new IllegalArgumentException(String.format("ERROR: %s is not a positive integer, seat number must be a positive integer!", sWantedSeats[i]));
-            }
-        }
-
-        try {
-            for (int k = 0; k < wantedSeats.length;k++) {
-                if (seats[wantedSeats[k]]) { //If the seat is already occupied, throws exception.
-                    throw new IllegalArgumentException("ERROR: One or more seats already sold!");
-                }
-                for (int i = k + 1; i < wantedSeats.length; i++){
-                    if (wantedSeats[k] == wantedSeats[i]){ // if a seat is given two times, throws exception
-                        throw new IllegalArgumentException("ERROR: Same seat can't be bought more than once!");
-                    }
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException e) {
-            throw new IllegalArgumentException("ERROR: There is no such a seat!");
-        }
-
-        for (int seat : wantedSeats) {
-            if (!seats[seat]) { // If the seat is empty, switch it to occupied and increase the revenue.
-                seats[seat] = true;
+        for (int i = 0; i < wantedSeatCount; i++) {
+            int seat = wantedSeats[i];
+            if (!seats.get(seat)) { // If the seat is empty, switch it to occupied and increase the revenue.
+                seats.set(seat);
 
                 if (seat % 3 == 0) { // If the seat is premium, use premium seat price.
                     actionCost += premiumSeatPrice();
@@ -138,63 +122,48 @@ public class PremiumBus extends Bus {
             }
         }
 
-        String str = String.format("Seat %s of the Voyage %d from %s to %s was successfully sold for %.2f TL.", parts[2].replace("_", "-"), getId(), getDeparture(), getDestination(), actionCost);
-        FileIO.writeToFile(output, str, true, true);
+        String str = String.format("Seat %s of the Voyage %d from %s to %s was successfully sold for %.2f TL.", parts.get(2).replace('_', '-'), getId(), getDeparture(), getDestination(), actionCost);
+        output.write(str, true);
     }
 
     @Override
-    public void refundTicket(String[] parts, String output) throws IllegalArgumentException {
+    public void refundTicket(CommandTokenizer parts, OutputFile output) throws IllegalArgumentException {
         double actionCost = 0; // The money that will be refunded to the user.
-        String[] sRefundedSeats = parts[2].split("_");
-        int[] refundedSeats = new int[sRefundedSeats.length];
-
-        // Switches the refunded seats from String to int.
-        for (int i = 0; i < sRefundedSeats.length; i++) {
-            try {
-                if (Integer.parseInt(sRefundedSeats[i]) <= 0){
-                    throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, seat number must be a positive integer!", Integer.parseInt(sRefundedSeats[i])));
-                }
-                refundedSeats[i] = Integer.parseInt(sRefundedSeats[i]) - 1; //-1 because seat 1 is at index 0 etc.
-            } catch (NumberFormatException e) { //Parsing throws NumberFormatException if a refunded seat is not an integer.
-                throw new IllegalArgumentException(String.format("ERROR: %s is not a positive integer, seat number must be a positive integer!", sRefundedSeats[i]));
-            }
-        }
+        int refundedSeatCount = parts.parseSeats(2); // Switches the refunded seats from String to int.
+        int[] refundedSeats = parts.getSeats();
 
 
-        try {
-            for (int k = 0; k < refundedSeats.length;k++){
-                if (!seats[refundedSeats[k]]){ // If the user tries to refund an empty seat, throws exception.
-                    throw new IllegalArgumentException("ERROR: One or more seats are already empty!");
-                }
-                for (int i = k + 1; i <refundedSeats.length; i++){
-                    if (refundedSeats[k] == refundedSeats[i]){ // if a seat is given two times, throws exception
-                        throw new IllegalArgumentException("ERROR: Same seat can't be refunded more than once!");
-                    }
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException e) {
-            throw new IllegalArgumentException("ERROR: There is no such a seat!");
-        }
+        checkSeats(refundedSeats, refundedSeatCount, false);
 
-        for (int seat : refundedSeats) {
-            if (seats[seat]) { // If the seat is occupied, switches it to empty and decreases the revenue.
-                seats[seat] = false;
+        for (int i = 0; i < refundedSeatCount; i++) {
+            int seat = refundedSeats[i];
+            if (seats.get(seat)) { // If the seat is occupied, switches it to empty and decreases the revenue.
+                seats.clear(seat);
                 actionCost += refundPrice(seat);
                 setRevenue(getRevenue() - refundPrice(seat));
             }
         }
 
         String str = String.format("Seat %s of the Voyage %d from %s to %s was successfully refunded for %.2f TL.",
-                parts[2].replace("_", "-"), getId(), getDeparture(), getDestination(), actionCost);
-        FileIO.writeToFile(output, str, true, true);
+                parts.get(2).replace('_', '-'), getId(), getDeparture(), getDestination(), actionCost);
+        output.write(str, true);
 
 
     }
 
     @Override
-    public void cancelVoyage(String output) {
-        for (int i = 0; i < seats.length; i++) {
-            if (seats[i]) {
+    public void cancelVoyage(OutputFile output) {
+        // Refunds every occupied seat, the premium seats with the premium seat price. The price is taken once for
+        // every seat in the order of the seats, so the revenue comes out the same as adding the sales up again.
+        int premiumSeats = getOccupiedPremiumSeatCount();
+        int regularSeats = getOccupiedSeatCount() - premiumSeats;
+        if (premiumSeats == 0 || regularSeats == 0) { // one price for every seat, so the order does not matter
+            double price = premiumSeats == 0 ? getSeatPrice() : premiumSeatPrice();
+            for (int occupied = premiumSeats + regularSeats; occupied > 0; occupied--) {
+                setRevenue(getRevenue() - price);
+            }
+        } else {
+            for (int i = seats.nextSetBit(0); i != -1; i = seats.nextSetBit(i + 1)) {
                 if (i % 3 == 0) { // If the seat is premium, use premium seat price.
                     setRevenue(getRevenue() - premiumSeatPrice());
                 } else {
@@ -202,35 +171,15 @@ public class PremiumBus extends Bus {
                 }
             }
         }
-        FileIO.writeToFile(output, "Voyage " + getId() + " was successfully cancelled!", true, true);
-        FileIO.writeToFile(output, "Voyage details can be found below:", true, true);
+        output.write("Voyage " + getId() + " was successfully cancelled!", true);
+        output.write("Voyage details can be found below:", true);
         printVoyage(output);
     }
 
-    public void printVoyage(String output) {
-        FileIO.writeToFile(output, "Voyage " + getId(), true, true);
-        FileIO.writeToFile(output, getDeparture() + "-" + getDestination(), true, true);
-        for (int i = 0; i < seats.length; i++) {
-            if (!seats[i]) {
-                if (i % 3 == 0) { // Every seat except the first one in the row has space character in front.
-                    FileIO.writeToFile(output, "*", true, false);
-                } else {
-                    FileIO.writeToFile(output, " *", true, false);
-                }
-            } else {
-                if (i % 3 == 0) { // Every seat except the first one in the row has space character in front.
-                    FileIO.writeToFile(output, "X", true, false);
-                } else {
-                    FileIO.writeToFile(output, " X", true, false);
-                }
-            }
-
-            if (i % 3 == 2) { // Adds new line after the end of a row.
-                FileIO.writeToFile(output, "", true, true);
-            } else if (i % 3 == 0) { // Adds a line representing the corridor after the second seat of a row.
-                FileIO.writeToFile(output, " |", true, false);
-            }
-        }
-        FileIO.writeToFile(output, String.format("Revenue: %.2f", getRevenue()), true, true);
+    public void printVoyage(OutputFile output) {
+        output.write("Voyage " + getId(), true);
+        output.write(getDeparture() + "-" + getDestination(), true);
+        printSeats(output, 3, 0);
+        output.write(String.format("Revenue: %.2f", getRevenue()), true);
     }
 }
@@ -0,0 +1,129 @@
+/**
+ * The seats of a bus, one bit for every seat (1 for occupied), packed into long words.
+ * Counting and searching the seats works on whole words instead of one seat at a time.
+ */
+public class SeatMap {
+    private final long[] words;
+    private final int size;
+    private long[] classMasks; // the masks of the last seat class counted, made once for the map
+    private int classPeriod;
+    private int classRemainder;
+
+    /**
+     * Creates a map of empty seats.
+     *
+     * @param size Number of seats.
+     */
+    public SeatMap(int size) {
+        this.size = size;
+        words = new long[(size + 63) >>> 6];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the seat is occupied.
+     *
+     * @param seat Index of the seat, from 0.
+     * @return True if the seat is occupied.
+     * @throws ArrayIndexOutOfBoundsException If there is no such seat.
+     */
+    public boolean get(int seat) {
+        checkIndex(seat);
+        return (words[seat >>> 6] & (1L << seat)) != 0;
+    }
+
+    /**
+     * Marks the seat as occupied.
+     *
+     * @param seat Index of the seat, from 0.
+     */
+    public void set(int seat) {
+        checkIndex(seat);
+        words[seat >>> 6] |= 1L << seat;
+    }
+
+    /**
+     * Marks the seat as empty.
+     *
+     * @param seat Index of the seat, from 0.
+     */
+    public void clear(int seat) {
+        checkIndex(seat);
+        words[seat >>> 6] &= ~(1L << seat);
+    }
+
+    /**
+     * Counts the occupied seats.
+     *
+     * @return Number of occupied seats.
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the occupied seats of one class, the seats whose index gives the same remainder, such as
+     * the premium seats of a premium bus (index % 3 == 0).
+     *
+     * @param period    The number of seats in a row.
+     * @param remainder The remainder of the index of the seats of the class.
+     * @return Number of occupied seats of the class.
+     */
+    public int cardinality(int period, int remainder) {
+        // the seats of the class in a word depend only on the remainder of its first index, so one mask is made for each
+        if (classMasks == null || classPeriod != period || classRemainder != remainder) {
+            classMasks = new long[period];
+            for (int first = 0; first < period; first++) {
+                for (int bit = 0; bit < 64; bit++) {
+                    if ((first + bit) % period == remainder) {
+                        classMasks[first] |= 1L << bit;
+                    }
+                }
+            }
+            classPeriod = period;
+            classRemainder = remainder;
+        }
+        long[] masks = classMasks;
+        int count = 0;
+        int first = 0; // remainder of the index of the first seat of the word
+        for (long word : words) {
+            count += Long.bitCount(word & masks[first]);
+            first = (first + 64) % period;
+        }
+        return count;
+    }
+
+    /**
+     * Finds the first occupied seat from the given index.
+     *
+     * @param from The index to start from.
+     * @return The index of the seat, -1 if there is none.
+     */
+    public int nextSetBit(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int index = from >>> 6;
+        long word = words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private void checkIndex(int seat) {
+        if (seat < 0 || seat >= size) {
+            throw new ArrayIndexOutOfBoundsException("Seat " + seat + " is out of bounds for " + size + " seats.");
+        }
+    }
+}
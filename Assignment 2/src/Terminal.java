@@ -1,222 +1,175 @@
-import java.util.ArrayList;
+import java.io.IOException;
 
 /**
  * This class holds the bus objects and does file operations.
  */
 public class Terminal {
-    private static ArrayList<Bus> busList; // The array list of every bus object that is created.
+    private static VoyageRegistry voyages; // Every bus object that is created, found by its id.
+    private static final CommandRegistry commands = new CommandRegistry(); // The commands, found by their names.
+
+    static {
+        commands.register("INIT_VOYAGE", Terminal::initVoyage);
+        commands.register("PRINT_VOYAGE", Terminal::printVoyage);
+        commands.register("Z_REPORT", Terminal::zReport);
+        commands.register("SELL_TICKET", Terminal::sellTicket);
+        commands.register("REFUND_TICKET", Terminal::refundTicket);
+        commands.register("CANCEL_VOYAGE", Terminal::cancelVoyage);
+    }
 
     /**
      * Calls the related methods and handles exceptions according to the input.
      * This method exists in order to catch exceptions before calling the methods,
      * instead of sending possibly wrong parameters to them.
+     * The commands are read and run one by one, so the output is written while the input is being read.
      *
-     * @param inputFile The content of the input file.
+     * @param input      The commands of the input file.
      * @param outputFile The output file to write on.
+     * @throws IOException If the input file cannot be read.
      */
-    public static void operations(String[] inputFile, String outputFile) {
-        busList = new ArrayList<Bus>();
+    public static void operations(CommandReader input, OutputFile outputFile) throws IOException {
+        voyages = new VoyageRegistry();
+        CommandTokenizer parts = new CommandTokenizer(); // Reused for every command.
 
-        if (inputFile.length == 0){ //If the file is empty, call zReport.
-            Bus.zReport(busList,outputFile);
+        if (!input.hasNext()){ //If the file is empty, call zReport.
+            Bus.zReport(voyages,outputFile);
         }
 
-        for (int k = 0; k < inputFile.length; k++) {
-            FileIO.writeToFile(outputFile, "COMMAND: " + inputFile[k], true, true);
-            String[] parts = inputFile[k].split("\t");
-
-            if (parts[0].equals("INIT_VOYAGE")) {
-                try {
-                    Bus bus;
-
-                    // Create a new bus of wanted type.
-                    if (parts[1].equals("Minibus")) {
-                        if (parts.length != 7){
-                            throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
-                        }
-                        bus = new Minibus(parts[2], parts[3], parts[4], parts[5], parts[6]);
-                    } else if (parts[1].equals("Standard")) {
-                        if (parts.length != 8){
-                            throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
-                        }
-                        bus = new StandardBus(parts[2], parts[3], parts[4], parts[5], parts[6], parts[7]);
-                    } else if (parts[1].equals("Premium")) {
-                        if (parts.length != 9){
-                            throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
-                        }
-                        bus = new PremiumBus(parts[2], parts[3], parts[4], parts[5], parts[6], parts[7], parts[8]);
-                    } else {
-                        throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
-                    }
-
-                    // Checks if there is already a voyage with the same id.
-                    for (Bus myBus : busList) {
-                        if (myBus.getId() == Integer.parseInt(parts[2])) {
-                            throw new IllegalArgumentException("ERROR: There is already a voyage with ID of " + parts[2] + "!");
-                        }
-                    }
-
-                    busList.add(bus); // Adds the created bus object to the array list.
-                    bus.initVoyage(parts, outputFile);
-
-                } catch (IllegalArgumentException i) {
-                    FileIO.writeToFile(outputFile, i.getMessage(), true, true);
-                } catch (Exception e) {
-                    FileIO.writeToFile(outputFile, "ERROR: Erroneous usage of \"INIT_VOYAGE\" command!", true, true);
-                }
-
+        String line;
+        while ((line = input.next()) != null) {
+            outputFile.write("COMMAND: " + line, true);
+            parts.reset(line);
 
+            Command command = commands.find(parts);
+            if (command != null) {
+                command.run(parts, input, outputFile);
+            } else { // If an unknown command is used, print an error.
+                outputFile.write("ERROR: There is no command namely " + parts.get(0) + "!", true);
             }
 
-            else if (parts[0].equals("PRINT_VOYAGE")) {
-
-                try {
-                    if (parts.length != 2) {
-                        throw new IllegalArgumentException("ERROR: Erroneous usage of \"PRINT_VOYAGE\" command!");
-                    }
-
-                    if (Integer.parseInt(parts[1]) <= 0) {
-                        throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, ID of a voyage must be a positive integer!", Integer.parseInt(parts[1])));
-                    }
-
-                    boolean found = false;
-                    for (Bus bus : busList) {
-                        if (bus.getId() == Integer.parseInt(parts[1])) { // If the voyage with the wanted id is found, call the method.
-                            found = true;
-                            bus.printVoyage(outputFile);
-                            break;
-                        }
-                    }
-                    if (!found) {
-                        throw new IllegalArgumentException(String.format("ERROR: There is no voyage with ID of %d!", Integer.parseInt(parts[1])));
-                    }
-                } catch (NumberFormatException i) { // Parsing at line 78 throws NumberFormatException if ID is not an integer.
-                    FileIO.writeToFile(outputFile, String.format("ERROR: %s is not a positive integer, ID of a voyage must be a positive integer!", parts[1]), true, true);
-                } catch (IllegalArgumentException e) {
-                    FileIO.writeToFile(outputFile, e.getMessage(), true, true);
+            // If the last command of the input file is not Z_REPORT, call it.
+            if (!input.hasNext()) {
+                if (!parts.is(0, "Z_REPORT")) {
+                    Bus.zReport(voyages, outputFile);
                 }
             }
+        }
+    }
 
-            else if (parts[0].equals("Z_REPORT")) {
-                try {
-                    if (parts.length != 1) {
-                        throw new IllegalArgumentException("ERROR: Erroneous usage of \"Z_REPORT\" command!");
-                    }
-
-                    Bus.zReport(busList, outputFile);
-                    if (!(k == inputFile.length - 1)) { // Adds a new line unless we are at the end of the file.
-                        FileIO.writeToFile(outputFile, "", true, true);
-                    }
-                } catch (IllegalArgumentException e) {
-                    FileIO.writeToFile(outputFile, e.getMessage(), true, true);
-                }
-            }
+    private static void initVoyage(CommandTokenizer parts, CommandReader input, OutputFile outputFile) {
+        try {
+            Bus bus;
 
-            else if (parts[0].equals("SELL_TICKET")) {
-                try {
-
-                    if (parts.length != 3) {
-                        throw new IllegalArgumentException("ERROR: Erroneous usage of \"SELL_TICKET\" command!");
-                    }
-
-                    if (Integer.parseInt(parts[1]) <= 0) {
-                        throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, ID of a voyage must be a positive integer!", Integer.parseInt(parts[1])));
-                    }
-
-                    boolean found = false;
-                    for (Bus bus : busList) {
-                        if (Integer.parseInt(parts[1]) == bus.getId()) { // If the voyage with the wanted id is found, calls the method.
-                            found = true;
-                            bus.sellTicket(parts, outputFile);
-                            break;
-                        }
-                    }
-
-                    if (!found) {
-                        throw new IllegalArgumentException(String.format("ERROR: There is no voyage with ID of %d!", Integer.parseInt(parts[1])));
-                    }
-                } catch (NumberFormatException n) { //Parsing at line 122 throws NumberFormatException if the id is not an int.
-                    FileIO.writeToFile(outputFile, String.format("ERROR: %s is not a positive integer, ID of a voyage must be a positive integer!", parts[1]), true, true);
-                } catch (IllegalArgumentException i) {
-                    FileIO.writeToFile(outputFile, i.getMessage(), true, true);
+            // Create a new bus of wanted type.
+            if (parts.is(1, "Minibus")) {
+                if (parts.count() != 7){
+                    throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
                 }
+                bus = new Minibus(parts.get(2), parts.get(3), parts.get(4), parts.get(5), parts.get(6));
+            } else if (parts.is(1, "Standard")) {
+                if (parts.count() != 8){
+                    throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
+                }
+                bus = new StandardBus(parts.get(2), parts.get(3), parts.get(4), parts.get(5), parts.get(6), parts.get(7));
+            } else if (parts.is(1, "Premium")) {
+                if (parts.count() != 9){
+                    throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
+                }
+                bus = new PremiumBus(parts.get(2), parts.get(3), parts.get(4), parts.get(5), parts.get(6), parts.get(7), parts.get(8));
+            } else {
+                throw new IllegalArgumentException("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!");
+            }
 
-
+            // Adds the created bus object to the registry, unless there is already a voyage with the same id.
+            if (!voyages.add(bus)) {
+                throw new IllegalArgumentException("ERROR: There is already a voyage with ID of " + parts.get(2) + "!");
             }
+            bus.initVoyage(parts, outputFile);
 
-            else if (parts[0].equals("REFUND_TICKET")){
-                try {
-                    if (parts.length != 3) {
-                        throw new IllegalArgumentException("ERROR: Erroneous usage of \"REFUND_TICKET\" command!");
-                    }
-
-                    if (Integer.parseInt(parts[1]) <= 0) {
-                        throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, ID of a voyage must be a positive integer!",Integer.parseInt(parts[1])));
-                    }
-
-                    boolean found = false;
-                    for (Bus bus : busList) {
-                        if (Integer.parseInt(parts[1]) == bus.getId()) { // If the voyage with the wanted id is found, calls the method.
-                            found = true;
-                            bus.refundTicket(parts, outputFile);
-                            break;
-                        }
-                    }
-
-                    if (!found) {
-                        throw new IllegalArgumentException(String.format("ERROR: There is no voyage with ID of %d!", Integer.parseInt(parts[1])));
-                    }
-                } catch (NumberFormatException n) { //Parsing at line 159 throws NumberFormatException if the id is not an int.
-                    FileIO.writeToFile(outputFile, String.format("ERROR: %s is not a positive integer, ID of a voyage must be a positive integer!", parts[1]), true, true);
-                } catch (IllegalArgumentException i) {
-                    FileIO.writeToFile(outputFile, i.getMessage(), true, true);
-                }
+        } catch (IllegalArgumentException i) {
+            outputFile.write(i.getMessage(), true);
+        } catch (Exception e) {
+            outputFile.write("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!", true);
+        }
+    }
 
+    private static void printVoyage(CommandTokenizer parts, CommandReader input, OutputFile outputFile) {
+        try {
+            findVoyage(parts, "PRINT_VOYAGE", 2).printVoyage(outputFile); // If the voyage with the wanted id is found, call the method.
+        } catch (IllegalArgumentException e) {
+            outputFile.write(e.getMessage(), true);
+        }
+    }
 
+    private static void zReport(CommandTokenizer parts, CommandReader input, OutputFile outputFile) throws IOException {
+        try {
+            if (parts.count() != 1) {
+                throw new IllegalArgumentException("ERROR: Erroneous usage of \"Z_REPORT\" command!");
             }
 
-            else if (parts[0].equals("CANCEL_VOYAGE")){
-                try {
-                    if (parts.length != 2) {
-                        throw new IllegalArgumentException("ERROR: Erroneous usage of \"CANCEL_VOYAGE\" command!");
-                    }
-
-                    if (Integer.parseInt(parts[1]) <= 0) {
-                        throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, ID of a voyage must be a positive integer!", Integer.parseInt(parts[1])));
-                    }
-
-                    boolean found = false;
-                    for (Bus bus : busList) {
-                        if (Integer.parseInt(parts[1]) == bus.getId()) { //If the voyage with the wanted id is found, calls the method.
-                            found = true;
-                            bus.cancelVoyage(outputFile);
-                            busList.remove(bus); // Remove the bus from the list if it is canceled.
-                            break;
-                        }
-                    }
-                    if (!found) {
-                        throw new IllegalArgumentException(String.format("ERROR: There is no voyage with ID of %d!", Integer.parseInt(parts[1])));
-                    }
-                } catch (NumberFormatException n) { //Parsing at line 184 throws NumberFormatException if the id is not an int.
-                    FileIO.writeToFile(outputFile, String.format("ERROR: %s is not a positive integer, ID of a voyage must be a positive integer!", parts[1]), true, true);
-                }
-                catch (IllegalArgumentException i){
-                    FileIO.writeToFile(outputFile,i.getMessage(),true,true);
-                }
+            Bus.zReport(voyages, outputFile);
+            if (input.hasNext()) { // Adds a new line unless we are at the end of the file.
+                outputFile.write("", true);
+            }
+        } catch (IllegalArgumentException e) {
+            outputFile.write(e.getMessage(), true);
+        }
+    }
 
+    private static void sellTicket(CommandTokenizer parts, CommandReader input, OutputFile outputFile) {
+        try {
+            findVoyage(parts, "SELL_TICKET", 3).sellTicket(parts, outputFile); // If the voyage with the wanted id is found, calls the method.
+        } catch (IllegalArgumentException i) {
+            outputFile.write(i.getMessage(), true);
+        }
+    }
 
-            }
+    private static void refundTicket(CommandTokenizer parts, CommandReader input, OutputFile outputFile) {
+        try {
+            findVoyage(parts, "REFUND_TICKET", 3).refundTicket(parts, outputFile); // If the voyage with the wanted id is found, calls the method.
+        } catch (IllegalArgumentException i) {
+            outputFile.write(i.getMessage(), true);
+        }
+    }
 
-            else { // If an unknown command is used, print an error.
-                FileIO.writeToFile(outputFile, "ERROR: There is no command namely " + parts[0] + "!", true, true);
-            }
+    private static void cancelVoyage(CommandTokenizer parts, CommandReader input, OutputFile outputFile) {
+        try {
+            Bus bus = findVoyage(parts, "CANCEL_VOYAGE", 2);
+            bus.cancelVoyage(outputFile); //If the voyage with the wanted id is found, calls the method.
+            voyages.remove(bus.getId()); // Remove the bus from the registry if it is canceled.
+        } catch (IllegalArgumentException i){
+            outputFile.write(i.getMessage(), true);
+        }
+    }
 
-            // If the last command of the input file is not Z_REPORT, call it.
-            if (k == inputFile.length - 1) {
-                if (!parts[0].equals("Z_REPORT")) {
-                    Bus.zReport(busList, outputFile);
-                }
-            }
+    /**
+     * Finds the voyage whose id is the second part of the command.
+     *
+     * @param parts     Parts of the line of the input that we are working on.
+     * @param name      The name of the command, for the error message.
+     * @param partCount The number of parts the command must have.
+     * @return The voyage.
+     * @throws IllegalArgumentException Throws this exception if the command has a wrong number of parts,
+     *                                  the id is not a positive integer or there is no voyage with the id.
+     */
+    private static Bus findVoyage(CommandTokenizer parts, String name, int partCount) throws IllegalArgumentException {
+        if (parts.count() != partCount) {
+            throw new IllegalArgumentException("ERROR: Erroneous usage of \"" + name + "\" command!");
+        }
+
+        int id;
+        try {
+            id = parts.getInt(1);
+        } catch (NumberFormatException n) { // Parsing throws NumberFormatException if the id is not an int.
+            throw new IllegalArgumentException(String.format("ERROR: %s is not a positive integer, ID of a voyage must be a positive integer!", parts.get(1)));
+        }
+        if (id <= 0) {
+            throw new IllegalArgumentException(String.format("ERROR: %d is not a positive integer, ID of a voyage must be a positive integer!", id));
+        }
+
+        Bus bus = voyages.get(id);
+        if (bus == null) {
+            throw new IllegalArgumentException(String.format("ERROR: There is no voyage with ID of %d!", id));
         }
+        return bus;
     }
-}
\ No newline at end of file
+}
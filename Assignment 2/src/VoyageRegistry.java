@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Holds the voyages of the terminal. A voyage is found by its id in constant time through a hash table
+ * of int keys, and the voyages can be listed in the order of their ids for the Z report.
+ *
+ * The ids in order are kept in a sorted array. The ids added after it is last sorted wait in another array
+ * and are sorted and merged into it only when the voyages are listed, so adding a voyage does not shift the
+ * sorted array. Removed ids are dropped from it at the same time.
+ */
+public class VoyageRegistry {
+    // open addressing with linear probing; ids are positive, so 0 marks an empty place
+    private int[] keys = new int[16];
+    private Bus[] values = new Bus[16];
+    private int size = 0;
+
+    private int[] orderedIds = new int[0]; // sorted when the voyages were last listed, can have removed ids
+    private int[] addedIds = new int[16]; // ids added since then, not sorted
+    private int addedCount = 0;
+
+    /**
+     * Finds the voyage with the given id.
+     *
+     * @param id The id of the voyage.
+     * @return The voyage, null if there is no voyage with the id.
+     */
+    public Bus get(int id) {
+        int index = indexOf(id);
+        return keys[index] == id ? values[index] : null;
+    }
+
+    /**
+     * Adds a voyage unless there is already a voyage with its id.
+     *
+     * @param bus The voyage.
+     * @return True if the voyage is added, false if its id is already used.
+     */
+    public boolean add(Bus bus) {
+        int id = bus.getId();
+        int index = indexOf(id);
+        if (keys[index] == id) {
+            return false;
+        }
+        keys[index] = id;
+        values[index] = bus;
+        size++;
+        if (addedCount == addedIds.length) {
+            addedIds = Arrays.copyOf(addedIds, addedCount * 2);
+        }
+        addedIds[addedCount++] = id;
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the voyage with the given id.
+     *
+     * @param id The id of the voyage.
+     * @return The removed voyage, null if there is no voyage with the id.
+     */
+    public Bus remove(int id) {
+        int index = indexOf(id);
+        if (keys[index] != id) {
+            return null;
+        }
+        Bus bus = values[index];
+        size--;
+        // moves the following keys of the same run back, so that no search stops at the emptied place too early
+        int mask = keys.length - 1;
+        int empty = index;
+        int next = (index + 1) & mask;
+        while (keys[next] != 0) {
+            int home = hash(keys[next]) & mask;
+            // the key can move to the empty place only if the place is between its home and its current place
+            if (((next - home) & mask) >= ((next - empty) & mask)) {
+                keys[empty] = keys[next];
+                values[empty] = values[next];
+                empty = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[empty] = 0;
+        values[empty] = null;
+        return bus;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Lists the voyages in the order of their ids.
+     *
+     * @return The voyages sorted by id.
+     */
+    public ArrayList<Bus> ordered() {
+        // the ids added since the last call are sorted and merged with the sorted ones, skipping the removed ones
+        Arrays.sort(addedIds, 0, addedCount);
+        int[] merged = new int[size];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        int last = 0;
+        while (i < orderedIds.length || j < addedCount) {
+            int id;
+            if (j == addedCount || (i < orderedIds.length && orderedIds[i] <= addedIds[j])) {
+                id = orderedIds[i++];
+            } else {
+                id = addedIds[j++];
+            }
+            // an id removed and added again can be in both arrays
+            if (id != last && get(id) != null) {
+                merged[count++] = id;
+                last = id;
+            }
+        }
+        orderedIds = merged;
+        addedCount = 0;
+
+        ArrayList<Bus> buses = new ArrayList<>(size);
+        for (int id : orderedIds) {
+            buses.add(get(id));
+        }
+        return buses;
+    }
+
+    private int indexOf(int id) {
+        int mask = keys.length - 1;
+        int index = hash(id) & mask;
+        while (keys[index] != 0 && keys[index] != id) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Bus[] oldValues = values;
+        keys = new int[capacity];
+        values = new Bus[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}